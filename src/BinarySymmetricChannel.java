@@ -0,0 +1,26 @@
+import java.util.Random;
+
+//Every bit is flipped independently with the same probability
+class BinarySymmetricChannel implements ChannelModel {
+    private final double bitErrorRate;
+    private final Random random;
+
+    BinarySymmetricChannel(double bitErrorRate) {
+        this(bitErrorRate, new Random());
+    }
+
+    BinarySymmetricChannel(double bitErrorRate, Random random) {
+        this.bitErrorRate = ChannelModel.probability(bitErrorRate);
+        this.random = random;
+    }
+
+    @Override
+    public long apply(byte[] data) {
+        long bits = 8L * data.length, flips = 0;
+        for (long bit = ChannelModel.next(random, 0, bitErrorRate, bits); bit < bits; bit = ChannelModel.next(random, bit + 1, bitErrorRate, bits)) {
+            data[(int) (bit >>> 3)] ^= 1 << (bit & 7);
+            flips++;
+        }
+        return flips;
+    }
+}
@@ -0,0 +1,51 @@
+import java.util.Random;
+
+//Simulated noisy channel applied to received data, so encodings can be tried against errors on a clean connection.
+//Models jump from one damaged position to the next with geometric gaps, so cost follows number of errors, not data length;
+//each of them draws from its own Random, which tests give a fixed seed
+interface ChannelModel {
+    //damage data in place, returns number of damaged bits or erased bytes
+    long apply(byte[] data);
+
+    //positions passed over before next event of probability p per position, Long.MAX_VALUE when it never comes
+    static long gap(Random random, double p) {
+        if (p <= 0) return Long.MAX_VALUE;
+        if (p >= 1) return 0;
+        double u = 1 - random.nextDouble(); //in (0, 1], so logarithm is finite
+        return (long) (Math.log(u) / Math.log1p(-p)); //saturates at Long.MAX_VALUE for tiny p
+    }
+
+    //next event position after start, limit when it is not before limit
+    static long next(Random random, long start, double p, long limit) {
+        long gap = gap(random, p);
+        return gap >= limit - start ? limit : start + gap;
+    }
+
+    //off, bsc:p, ge:pGood:pBad:pGoodToBad:pBadToGood or erasure:p
+    static ChannelModel parse(String spec) {
+        if (spec == null || spec.equals("off")) return null;
+        String[] parts = spec.split(":");
+        try {
+            switch (parts[0]) {
+                case "bsc":
+                    if (parts.length == 2) return new BinarySymmetricChannel(Double.parseDouble(parts[1]));
+                    break;
+                case "ge":
+                    if (parts.length == 5) return new GilbertElliottChannel(Double.parseDouble(parts[1]), Double.parseDouble(parts[2]),
+                            Double.parseDouble(parts[3]), Double.parseDouble(parts[4]));
+                    break;
+                case "erasure":
+                    if (parts.length == 2) return new ErasureChannel(Double.parseDouble(parts[1]));
+                    break;
+            }
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid channel model: " + spec);
+        }
+        throw new IllegalArgumentException("Invalid channel model: " + spec);
+    }
+
+    static double probability(double p) {
+        if (!(p >= 0 && p <= 1)) throw new IllegalArgumentException("Probability must be in [0, 1]");
+        return p;
+    }
+}
@@ -1,7 +1,10 @@
-import algorithms.Huffman;
-import algorithms.LZ78;
-import algorithms.RLE;
-import algorithms.Repetition;
+import algorithms.CheckedBlocks;
+import algorithms.CodecHeader;
+import algorithms.CodecPipeline;
+import algorithms.CompressionSelector;
+import algorithms.CompressionType;
+import algorithms.EncodingSelector;
+import algorithms.EncodingType;
 import javafx.application.*;
 import javafx.geometry.Rectangle2D;
 import javafx.stage.*;
@@ -15,10 +18,19 @@ import javafx.geometry.Pos;
 import javax.imageio.ImageIO;
 import java.awt.image.BufferedImage;
 import java.io.*;
-import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 public class ChatApp extends Application {
+    private static final int WORKERS = Runtime.getRuntime().availableProcessors();
+    private static final long REPORT_TIMEOUT = TimeUnit.MINUTES.toNanos(1); //room member which did not report for this long has left
     private int PORT = 8080;
     private String IP = "127.0.0.1";
     private ObservableList<String> messages = FXCollections.observableArrayList();
@@ -26,13 +38,64 @@ public class ChatApp extends Application {
     private FileChooser fileChooser = new FileChooser();
     private boolean isServer;
     private NetworkConnection connection;
+    //error rate of outgoing direction by receiver, from its reports; room member is told apart by its number, peer is 0
+    private Map<Integer, Receiver> receivers = new ConcurrentHashMap<>();
+    private RetransmitCache<Integer> unacknowledged = new RetransmitCache<>(); //sent payloads with checked blocks, kept until they arrive intact
+    private RetransmitCache<Long> incomplete = new RetransmitCache<>(); //received messages with damaged blocks by Message.key, waiting for them to be resent
+    private FileSender fileSender = new FileSender(new FileSender.ChunkSink() {
+        @Override
+        public Message encode(FileTransfer transfer, long offset, byte[] chunk) {
+            return encodeChunk(transfer, offset, chunk);
+        }
+
+        @Override
+        public void send(FileTransfer transfer, Message chunk) throws Exception {
+            sendChunk(transfer, chunk);
+        }
+    }, transfer -> Platform.runLater(() -> showProgress(transfer, true)));
+    private FileReceiver fileReceiver = new FileReceiver();
+    private VBox transfers = new VBox(5); //row with progress and cancel button for each file being sent or received
+    private Map<FileTransfer, HBox> transferRows = new HashMap<>();
+    private Map<FileTransfer, ProgressBar> progressBars = new HashMap<>();
+    //compresses and encodes outgoing messages in order they were sent, so UI thread does not wait for codecs
+    private ExecutorService sender = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "Message sender");
+        thread.setDaemon(true);
+        return thread;
+    });
+    //received messages go reader thread -> FEC decode -> decompress -> sink, each stage on its own threads with bounded room,
+    //so decoding overlaps with reading and UI thread only shows results
+    private OrderedStage<Received, Void> sinkStage = new OrderedStage<>("Receive sink", 1, 64, this::receive, none -> {});
+    private OrderedStage<Received, Received> decompressStage = new OrderedStage<>("Decompress", WORKERS, 16, this::decompress, sinkStage::put);
+    private OrderedStage<Received, Received> decodeStage = new OrderedStage<>("Decode", WORKERS, 16, this::decode, decompressStage::put);
+
+    private static class Receiver {
+        private final EncodingSelector selector = new EncodingSelector();
+        private volatile long lastReport = System.nanoTime();
+    }
+
+    //message on its way through receive stages
+    private static class Received {
+        private final Message message;
+        private CodecPipeline pipeline;
+        private int[] damaged; //blocks of checked message which failed their checksum, null for other messages
+        private long corrections;
+        private byte[] bytes; //decoded, then decompressed data
+        private Exception error;
+
+        Received(Message message) {
+            this.message = message;
+        }
+    }
 
     private Server createServer() {
-        return new Server(PORT, message -> Platform.runLater(() -> receiveMessage(message)));
+        return new Server(PORT, message -> decodeStage.put(new Received(message)));
     }
 
     private Client createClient() {
-        return new Client(IP, PORT, message -> Platform.runLater(() -> receiveMessage(message)));
+        //--room=name connects to RoomServer instead of Server of another ChatApp
+        String room = getParameters().getNamed().get("room");
+        return new Client(IP, PORT, room, message -> decodeStage.put(new Received(message)));
     }
 
     private Parent createSelectWindow(final Stage stage) {
@@ -56,6 +119,16 @@ public class ChatApp extends Application {
     }
 
     private void setChatWindow(final Stage stage) {
+        //--noise=off, bsc:p, ge:pGood:pBad:pGoodToBad:pBadToGood or erasure:p replaces default simulated noise;
+        //invalid value is shown in chat and default noise is kept, connection starts anyway
+        String noise = getParameters().getNamed().get("noise");
+        if (noise != null) {
+            try {
+                connection.setNoise(ChannelModel.parse(noise));
+            } catch (IllegalArgumentException e) {
+                messages.add(e.getMessage() + ", default noise is used");
+            }
+        }
         try {
             connection.startConnection();
         } catch (Exception e) {
@@ -82,7 +155,7 @@ public class ChatApp extends Application {
         send.prefWidth(30);
         send.setOnAction(event -> sendMessage(inputField));
         HBox input = new HBox(10, attach, inputField, send);
-        VBox root = new VBox(10, chat, input);
+        VBox root = new VBox(10, chat, transfers, input);
         root.setPrefSize(600, 600);
         return root;
     }
@@ -91,76 +164,322 @@ public class ChatApp extends Application {
         return fileName.substring(fileName.lastIndexOf(".") + 1).toLowerCase();
     }
 
+    //file is read and encoded by sender thread, dialog is the only part on UI thread
     private void attach(final Stage stage, FileChooser fileChooser) {
-        try {
-            File selectedFile;
-            if ((selectedFile = fileChooser.showOpenDialog(stage)) != null) {
+        File selectedFile;
+        if ((selectedFile = fileChooser.showOpenDialog(stage)) == null) return;
+        sender.execute(() -> {
+            try {
                 String ext = getFileExtension(selectedFile.getName());
-                //TODO compression and encoding depending on extension
-                if (ext.equals("bmp") || ext.equals("tiff") || ext.equals("gif")) {
-                    BufferedImage img = ImageIO.read(new File(selectedFile.toPath().toString()));
-                    ByteArrayOutputStream baos = new ByteArrayOutputStream();
-                    ImageIO.write(img, ext, baos);
-                    byte[] bytes = baos.toByteArray();
-                    if (ext.equals("tiff")) bytes = new LZ78().compress(bytes);
-                    else bytes = new RLE().compress(bytes);
-                    connection.send(new Message(ext, new Repetition(5).encode(bytes)));
-                } else connection.send(new Message(ext, new Repetition(5).encode(new Huffman().compress(Files.readAllBytes(selectedFile.toPath())))));
-                messages.add(ext + " file was sent");
+                Path path = selectedFile.toPath();
+                byte[] bytes = null;
+                if (Files.size(path) <= FileSender.CHUNK_SIZE) {
+                    if (ext.equals("bmp") || ext.equals("tiff") || ext.equals("gif")) {
+                        BufferedImage img = ImageIO.read(path.toFile());
+                        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+                        ImageIO.write(img, ext, baos);
+                        bytes = baos.toByteArray();
+                    } else bytes = Files.readAllBytes(path);
+                }
+                //files larger than one chunk, and images which grew beyond it when written again, are read and sent
+                //chunk by chunk as they are on disk, chat goes on meanwhile
+                if (bytes == null || bytes.length > FileSender.CHUNK_SIZE) {
+                    fileSender.send(path, ext);
+                    return;
+                }
+                //attachments are compressed in parallel blocks
+                CompressionType compression = CompressionSelector.select(bytes, connection.getCapabilities().getCompressions());
+                send(ext, compression, true, bytes, error ->
+                        Platform.runLater(() -> messages.add(error == null ? ext + " file was sent" : "File could not be sent!")));
+            } catch (Exception e) {
+                e.printStackTrace();
+                Platform.runLater(() -> messages.add("File could not be sent!"));
             }
-        } catch (Exception e) {
-            messages.add("File could not be sent!");
-        }
+        });
     }
 
+    //line is shown at once and marked when it could not be sent, encoding and writing happen on other threads
     private void sendMessage(TextField inputField) {
         if (!inputField.getText().isEmpty()) {
             String message = (isServer ? "Server: " : "Client: ") + inputField.getText();
             inputField.clear();
+            int index = messages.size();
+            messages.add(message);
+            Consumer<Exception> onSent = error -> {
+                if (error != null) Platform.runLater(() -> messages.set(index, message + " (Failed to send!)"));
+            };
+            sender.execute(() -> {
+                try {
+                    byte[] bytes = message.getBytes(StandardCharsets.UTF_8);
+                    CompressionType compression = CompressionSelector.selectText(bytes, connection.getCapabilities().getCompressions());
+                    send(Message.TEXT, compression, false, bytes, onSent);
+                } catch (Exception e) {
+                    e.printStackTrace();
+                    onSent.accept(e);
+                }
+            });
+        }
+    }
+
+    private void send(String extension, CompressionType compression, boolean blocks, byte[] payload, Consumer<Exception> onSent) throws Exception {
+        connection.send(encode(extension, compression, blocks, payload), false, onSent);
+    }
+
+    //compress payload and encode it with encoding which suits current error rate, checked payloads are kept in case their blocks have to be resent
+    private Message encode(String extension, CompressionType compression, boolean blocks, byte[] payload) {
+        EncodingType encoding = noisiestReceiver().select(connection.getCapabilities().getEncodings());
+        CodecHeader codecs = new CodecHeader(compression, blocks, encoding);
+        Message message = new Message(extension, codecs, codecs.createPipeline().send(payload));
+        if (encoding == EncodingType.CRC32C) unacknowledged.put(message.getId(), message);
+        return message;
+    }
+
+    //message to room reaches every member, so it is encoded for the one with the most errors; members who stopped reporting
+    //are forgotten, selector with only its prior estimate stands in until first report comes. Peer at the other end of
+    //connection is kept however long it is quiet, a clean link would otherwise go back to heavy prior encoding
+    private EncodingSelector noisiestReceiver() {
+        long now = System.nanoTime();
+        receivers.entrySet().removeIf(entry -> entry.getKey() != 0 && now - entry.getValue().lastReport > REPORT_TIMEOUT);
+        EncodingSelector noisiest = null;
+        for (Receiver receiver : receivers.values())
+            if (noisiest == null || receiver.selector.bitErrorRate() > noisiest.bitErrorRate()) noisiest = receiver.selector;
+        return noisiest != null ? noisiest : new EncodingSelector();
+    }
+
+    //called on common pool for several chunks of file at once, each chunk is a message of its own
+    private Message encodeChunk(FileTransfer transfer, long offset, byte[] chunk) {
+        CompressionType compression = CompressionSelector.select(chunk, connection.getCapabilities().getCompressions());
+        Message message = encode(transfer.getExtension(), compression, false, chunk);
+        message.setChunk(transfer.getId(), offset, transfer.getSize());
+        return message;
+    }
+
+    //called by file sender thread, chunks give way to chat messages;
+    //the thread waits while queue is full, so file is read no faster than peer takes it
+    private void sendChunk(FileTransfer transfer, Message message) throws Exception {
+        connection.awaitCapacity(message.getData().length);
+        connection.send(message, true, error -> {
+            if (error != null) fileSender.cancel(transfer.getId());
+        });
+    }
+
+    //row of transfer is added when it starts and removed when it is complete or cancelled
+    private void showProgress(FileTransfer transfer, boolean outgoing) {
+        HBox row = transferRows.get(transfer);
+        boolean finished = transfer.isComplete() || transfer.isCancelled();
+        if (row == null && !finished) {
+            ProgressBar bar = new ProgressBar(0);
+            Button cancel = new Button("\u2716");
+            cancel.setOnAction(event -> {
+                if (outgoing) fileSender.cancel(transfer.getId());
+                else cancelIncoming(transfer.getSender(), transfer.getId());
+            });
+            row = new HBox(10, new Label(transfer.getExtension() + " file " + transfer.getSize() / 1024 + " KB"), bar, cancel);
+            transferRows.put(transfer, row);
+            progressBars.put(transfer, bar);
+            transfers.getChildren().add(row);
+        }
+        if (row != null) progressBars.get(transfer).setProgress(transfer.progress());
+        if (!finished) return;
+        if (row != null) {
+            transfers.getChildren().remove(row);
+            transferRows.remove(transfer);
+            progressBars.remove(transfer);
+        }
+        if (transfer.isCancelled()) {
+            if (outgoing) {
+                sendBlocks(Message.CANCEL_SEND, transfer.getId(), null, new byte[0], 0);
+                unacknowledged.removeTransfer(0, transfer.getId());
+            }
+            messages.add(transfer.getExtension() + " file transfer was cancelled");
+        } else messages.add(transfer.getExtension() + (outgoing ? " file was sent" : " file was received"));
+    }
+
+    //partly received file is dropped and sender is told to stop, called from UI and sink thread
+    private void cancelIncoming(int sender, int transfer) {
+        sendBlocks(Message.CANCEL_RECEIVE, transfer, null, new byte[0], sender);
+        FileTransfer cancelled = fileReceiver.cancel(sender, transfer);
+        incomplete.removeTransfer(sender, transfer);
+        if (cancelled != null) Platform.runLater(() -> showProgress(cancelled, false));
+    }
+
+    //tell sender how many damaged bits were found in received bytes, so it can adjust its encoding
+    private void report(long receivedBytes, long corrections, int recipient) {
+        sender.execute(() -> {
             try {
-                //TODO compression and encoding
-                connection.send(new Message("-1", new Repetition(5).encode(new Huffman().compress(message.getBytes()))));
-                messages.add(message);
+                CodecHeader codecs = new CodecHeader(CompressionType.STORED, false, EncodingType.REPETITION_5);
+                connection.send(new Message(Message.REPORT, codecs, codecs.createPipeline().send(EncodingSelector.report(8 * receivedBytes, corrections))), recipient);
+            } catch (IOException e) {
+                //report is dropped when connection is closed or peer stalled, the next one counts the same bytes anyway
             } catch (Exception e) {
                 e.printStackTrace();
-                messages.add(message + " (Failed to send!)");
             }
+        });
+    }
+
+    //recipient is room member the message is about, 0 sends it to everybody
+    private void sendBlocks(String extension, int id, int[] blocks, byte[] data, int recipient) {
+        try {
+            connection.send(new Message(extension, id, blocks, data), recipient);
+        } catch (IOException e) {
+            //refused when connection is closed or peer stalled, blocks still waiting are dropped by RetransmitCache in time
+        } catch (Exception e) {
+            e.printStackTrace();
         }
     }
 
-    private void receiveMessage(Message message) {
-        if (message != null && message.getExtension() != null)
-            if (!message.getExtension().equals("-1")) {
-                try {
-                    //TODO decoding and decompression depending on extension
-                    String ext = message.getExtension();
-                    byte[] bytes = new Repetition(5).decode(message.getData());
-                    String path = "file.";
-                    int i = 1;
-                    while (Files.exists(Paths.get(path + ext)))
-                        path = "file (" + i++ + ").";
-                    if (ext.equals("bmp") || ext.equals("tiff") || ext.equals("gif")) {
-                        if (ext.equals("tiff")) bytes = new LZ78().decompress(bytes);
-                        else bytes = new RLE().decompress(bytes);
-                        ByteArrayInputStream bais = new ByteArrayInputStream(bytes);
-                        BufferedImage c = ImageIO.read(bais);
-                        ImageIO.write(c, ext, new File(path + ext));
-                    } else {
-                        bytes = new Huffman().decompress(bytes);
-                        FileOutputStream fileOutputStream = new FileOutputStream(new File(path + ext));
-                        fileOutputStream.write(bytes);
-                        fileOutputStream.close();
-                    }
-                    messages.add(ext + " file was received");
-                } catch (Exception ex) {
-                    System.out.println("SOMETHING WENT WRONG!");
-                    ex.printStackTrace();
+    //FEC stage: payloads are decoded here, control messages and checked payloads with damaged blocks go to sink as they are
+    private Received decode(Received received) {
+        Message message = received.message;
+        if (!isPayload(message)) return received;
+        boolean checked = false;
+        try {
+            //unknown or damaged codec header fails message like any other decoding error, its transfer is cancelled by sink
+            CodecHeader codecs = message.getCodecs();
+            received.pipeline = codecs.createPipeline();
+            checked = codecs.hasEncoding(EncodingType.CRC32C);
+            if (checked) {
+                CheckedBlocks blocks = new CheckedBlocks();
+                received.damaged = blocks.damagedBlocks(message.getData());
+                received.corrections = blocks.corrections();
+                if (received.damaged.length > 0) return received;
+            }
+            received.bytes = received.pipeline.decode(message.getData());
+        } catch (Exception e) {
+            received.error = e;
+        }
+        if (!checked && received.pipeline != null) received.corrections = received.pipeline.corrections();
+        return received;
+    }
+
+    private Received decompress(Received received) {
+        if (received.bytes == null) return received;
+        try {
+            received.bytes = received.pipeline.decompress(received.bytes);
+        } catch (Exception e) {
+            received.error = e;
+            received.bytes = null;
+        }
+        return received;
+    }
+
+    private static boolean isPayload(Message message) {
+        String ext = message.getExtension();
+        return ext != null && !ext.equals(Message.REPORT) && !ext.equals(Message.NACK) && !ext.equals(Message.RESEND)
+                && !ext.equals(Message.CANCEL_SEND) && !ext.equals(Message.CANCEL_RECEIVE);
+    }
+
+    //sink stage, one thread in order messages came: state of retransmissions and transfers is only touched here
+    private Void receive(Received received) {
+        Message message = received.message;
+        if (message.getExtension() == null) {
+            //nothing can be resent any more
+            unacknowledged.clear();
+            incomplete.clear();
+            show("Connection closed");
+        } else if (message.getExtension().equals(Message.REPORT)) {
+            try {
+                Receiver receiver = receivers.computeIfAbsent(message.getSender(), sender -> new Receiver());
+                receiver.selector.record(message.getCodecs().createPipeline().receive(message.getData()));
+                receiver.lastReport = System.nanoTime();
+            } catch (IllegalArgumentException e) {
+                e.printStackTrace();
+            }
+        } else if (message.getExtension().equals(Message.NACK)) {
+            //no blocks means everything arrived, otherwise only damaged blocks are sent again, to member who asked;
+            //in room one member having it all does not mean the others do, so payload is kept there
+            Message sent = unacknowledged.get(message.getId());
+            if (sent == null) return null;
+            if (message.getBlocks().length == 0) {
+                if (message.getSender() == 0) unacknowledged.remove(message.getId());
+            } else sendBlocks(Message.RESEND, message.getId(), message.getBlocks(),
+                    new CheckedBlocks().copyBlocks(sent.getData(), message.getBlocks()), message.getSender());
+        } else if (message.getExtension().equals(Message.RESEND)) {
+            Message original = incomplete.get(Message.key(message.getSender(), message.getId()));
+            if (original == null) return null;
+            try {
+                new CheckedBlocks().patch(original.getData(), message.getBlocks(), message.getData());
+            } catch (IllegalArgumentException e) {
+                e.printStackTrace();
+                return null;
+            }
+            //patched message is rare and goes through both stages right here, so later messages wait for it
+            receiveChecked(decompress(decode(new Received(original))), message.getData().length);
+        } else if (message.getExtension().equals(Message.CANCEL_SEND)) {
+            FileTransfer cancelled = fileReceiver.cancel(message.getSender(), message.getId());
+            incomplete.removeTransfer(message.getSender(), message.getId());
+            if (cancelled != null) Platform.runLater(() -> showProgress(cancelled, false));
+        } else if (message.getExtension().equals(Message.CANCEL_RECEIVE)) {
+            //member of room who does not want file drops its chunks itself, the others still get it
+            if (message.getSender() == 0) fileSender.cancel(message.getId());
+        }
+        else if (received.damaged != null) receiveChecked(received, message.getData().length);
+        else {
+            report(message.getData().length, received.corrections, message.getSender());
+            deliver(received);
+        }
+        return null;
+    }
+
+    //checked message is delivered when all its blocks are intact, damaged ones are asked for again
+    private void receiveChecked(Received received, long receivedBytes) {
+        Message message = received.message;
+        report(receivedBytes, received.corrections, message.getSender());
+        if (received.damaged == null) {
+            deliver(received);
+            return;
+        }
+        sendBlocks(Message.NACK, message.getId(), received.damaged, new byte[0], message.getSender());
+        long key = Message.key(message.getSender(), message.getId());
+        if (received.damaged.length > 0) incomplete.put(key, message);
+        else {
+            incomplete.remove(key);
+            deliver(received);
+        }
+    }
+
+    //show text or save attachment, bytes are already decoded and decompressed; only display goes to UI thread
+    private void deliver(Received received) {
+        Message message = received.message;
+        byte[] bytes = received.bytes;
+        if (received.error != null) {
+            System.out.println("SOMETHING WENT WRONG!");
+            received.error.printStackTrace();
+            if (message.getTransfer() != 0) cancelIncoming(message.getSender(), message.getTransfer());
+        } else if (message.getTransfer() != 0) {
+            //chunk goes straight to its file, transfer whose file cannot be written is given up
+            try {
+                FileTransfer transfer = fileReceiver.write(message, bytes);
+                if (transfer != null) Platform.runLater(() -> showProgress(transfer, false));
+            } catch (IOException e) {
+                e.printStackTrace();
+                cancelIncoming(message.getSender(), message.getTransfer());
+            }
+        } else if (!message.getExtension().equals(Message.TEXT)) {
+            try {
+                String ext = message.getExtension();
+                String path = FileReceiver.target(ext).toString();
+                if (ext.equals("bmp") || ext.equals("tiff") || ext.equals("gif")) {
+                    ByteArrayInputStream bais = new ByteArrayInputStream(bytes);
+                    BufferedImage c = ImageIO.read(bais);
+                    ImageIO.write(c, ext, new File(path));
+                } else {
+                    FileOutputStream fileOutputStream = new FileOutputStream(new File(path));
+                    fileOutputStream.write(bytes);
+                    fileOutputStream.close();
                 }
-            } else {
-                //TODO decoding and decompression
-                messages.add(new String(new Huffman().decompress(new Repetition(5).decode(message.getData())), Charset.forName("UTF-8")));
+                show(ext + " file was received");
+            } catch (Exception ex) {
+                System.out.println("SOMETHING WENT WRONG!");
+                ex.printStackTrace();
             }
-        else messages.add("Connection closed");
+        } else {
+            show(new String(bytes, StandardCharsets.UTF_8));
+        }
+    }
+
+    private void show(String line) {
+        Platform.runLater(() -> messages.add(line));
     }
 
     @Override
@@ -188,6 +507,10 @@ public class ChatApp extends Application {
 
     @Override
     public void stop() throws Exception {
+        sender.shutdownNow();
+        decodeStage.shutdown();
+        decompressStage.shutdown();
+        sinkStage.shutdown();
         if (connection != null) connection.closeConnection();
     }
 
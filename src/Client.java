@@ -3,11 +3,18 @@ import java.util.function.Consumer;
 class Client extends NetworkConnection {
     private String ip;
     private int port;
+    private String room;
 
     Client(String ip, int port, Consumer<Message> onReceiveCallback) {
+        this(ip, port, null, onReceiveCallback);
+    }
+
+    //client of RoomServer, messages go to everybody in room
+    Client(String ip, int port, String room, Consumer<Message> onReceiveCallback) {
         super(onReceiveCallback);
         this.ip = ip;
         this.port = port;
+        this.room = room;
     }
 
     @Override
@@ -24,4 +31,9 @@ class Client extends NetworkConnection {
     protected int getPort() {
         return port;
     }
+
+    @Override
+    protected String getRoom() {
+        return room;
+    }
 }
@@ -0,0 +1,26 @@
+import java.util.Random;
+
+//Every byte is lost independently with the same probability; lost byte arrives as zero, receiver is not told which ones were lost
+class ErasureChannel implements ChannelModel {
+    private final double erasureRate;
+    private final Random random;
+
+    ErasureChannel(double erasureRate) {
+        this(erasureRate, new Random());
+    }
+
+    ErasureChannel(double erasureRate, Random random) {
+        this.erasureRate = ChannelModel.probability(erasureRate);
+        this.random = random;
+    }
+
+    @Override
+    public long apply(byte[] data) {
+        long erased = 0;
+        for (long i = ChannelModel.next(random, 0, erasureRate, data.length); i < data.length; i = ChannelModel.next(random, i + 1, erasureRate, data.length)) {
+            data[(int) i] = 0;
+            erased++;
+        }
+        return erased;
+    }
+}
@@ -0,0 +1,104 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+//Chunks of incoming files written to their target files as they come, in any order; a chunk which comes twice is written once.
+//Finished transfers are forgotten, only their keys stay for a while, so chunks which were already on their way are dropped;
+//receive sink writes while UI may cancel. Transfers are told apart by sender too, ids are only chosen by each sender
+class FileReceiver {
+    private static final int FINISHED_KEYS = 1024;
+
+    private static class Incoming {
+        private final FileTransfer transfer;
+        private final FileChannel channel;
+        private final BitSet written = new BitSet(); //chunks by offset / CHUNK_SIZE
+
+        Incoming(FileTransfer transfer, FileChannel channel) {
+            this.transfer = transfer;
+            this.channel = channel;
+        }
+    }
+
+    private final Path directory;
+    private final Map<Long, Incoming> transfers = new HashMap<>(); //by Message.key of sender and id
+    private final Map<Long, Boolean> finished = new LinkedHashMap<Long, Boolean>() { //keys of completed and cancelled transfers, oldest first
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Boolean> eldest) {
+            return size() > FINISHED_KEYS;
+        }
+    };
+
+    FileReceiver() {
+        this(Paths.get(""));
+    }
+
+    FileReceiver(Path directory) {
+        this.directory = directory;
+    }
+
+    static Path target(String extension) {
+        return target(Paths.get(""), extension);
+    }
+
+    //first free name of file.ext, file (1).ext, ... in directory
+    static Path target(Path directory, String extension) {
+        String path = "file.";
+        int i = 1;
+        while (Files.exists(directory.resolve(path + extension)))
+            path = "file (" + i++ + ").";
+        return directory.resolve(path + extension);
+    }
+
+    //write decoded chunk, file is created by the first chunk which arrives; null when transfer is already finished
+    synchronized FileTransfer write(Message chunk, byte[] bytes) throws IOException {
+        long key = Message.key(chunk.getSender(), chunk.getTransfer());
+        if (finished.containsKey(key)) return null;
+        Incoming incoming = transfers.get(key);
+        if (incoming == null) {
+            Path path = target(directory, chunk.getExtension());
+            FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+            incoming = new Incoming(new FileTransfer(chunk.getSender(), chunk.getTransfer(), chunk.getExtension(), path, chunk.getSize()), channel);
+            transfers.put(key, incoming);
+        }
+        FileTransfer transfer = incoming.transfer;
+        if (chunk.getSize() != transfer.getSize() || chunk.getOffset() + bytes.length > transfer.getSize()
+                || chunk.getOffset() % FileSender.CHUNK_SIZE != 0)
+            throw new IOException("Invalid chunk of " + transfer.getPath());
+        int index = (int) (chunk.getOffset() / FileSender.CHUNK_SIZE);
+        if (incoming.written.get(index)) return transfer;
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        while (buffer.hasRemaining()) incoming.channel.write(buffer, chunk.getOffset() + buffer.position());
+        incoming.written.set(index);
+        transfer.add(bytes.length);
+        if (transfer.isComplete()) {
+            incoming.channel.close();
+            transfers.remove(key);
+            finished.put(key, true);
+        }
+        return transfer;
+    }
+
+    //partly written file is deleted, null if transfer is not known; its chunks are dropped even if none came yet
+    synchronized FileTransfer cancel(int sender, int id) {
+        long key = Message.key(sender, id);
+        Incoming incoming = transfers.remove(key);
+        if (!finished.containsKey(key)) finished.put(key, true);
+        if (incoming == null) return null;
+        incoming.transfer.cancel();
+        try {
+            incoming.channel.close();
+            Files.deleteIfExists(incoming.transfer.getPath());
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        return incoming.transfer;
+    }
+}
@@ -0,0 +1,170 @@
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
+
+//Files sent chunk by chunk from one thread: chunks are read from disk just before they go out, so whole file is never in memory,
+//and files being sent take turns, so a small file is not stuck behind a large one.
+//A window of chunks ahead of the one being sent is encoded on common pool, so large files are compressed on every core;
+//chunks still go out in order they were read, and the window bounds how much is read ahead of connection
+class FileSender {
+    static final int CHUNK_SIZE = 1 << 16;
+    private static final int WINDOW = 2 * Runtime.getRuntime().availableProcessors(); //chunks read but not sent yet
+
+    interface ChunkSink {
+        //called on common pool, for several chunks at once
+        Message encode(FileTransfer transfer, long offset, byte[] chunk) throws Exception;
+
+        //called from sending thread in order chunks were read, may wait until connection has room
+        void send(FileTransfer transfer, Message chunk) throws Exception;
+    }
+
+    private static class Active {
+        private final FileTransfer transfer;
+        private final FileChannel channel;
+        private long read; //bytes read from file, ahead of those sent by chunks in window
+        private boolean stopped; //cancellation was reported
+
+        Active(FileTransfer transfer, FileChannel channel) {
+            this.transfer = transfer;
+            this.channel = channel;
+        }
+    }
+
+    //chunk read from file and being encoded or waiting to be sent
+    private static class Pending {
+        private final Active active;
+        private final int length;
+        private final CompletableFuture<Message> message;
+
+        Pending(Active active, int length, CompletableFuture<Message> message) {
+            this.active = active;
+            this.length = length;
+            this.message = message;
+        }
+    }
+
+    private final ChunkSink sink;
+    private final Consumer<FileTransfer> onProgress; //called after each chunk and when transfer stops, from sending thread
+    private final ArrayDeque<Active> active = new ArrayDeque<>(); //transfers with chunks left to read
+    private final ArrayDeque<Pending> window = new ArrayDeque<>();
+    private Thread thread;
+
+    FileSender(ChunkSink sink, Consumer<FileTransfer> onProgress) {
+        this.sink = sink;
+        this.onProgress = onProgress;
+    }
+
+    //transfer id is random, so transfers of different senders in one room do not get the same one
+    synchronized FileTransfer send(Path path, String extension) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        FileTransfer transfer = new FileTransfer(ThreadLocalRandom.current().nextInt(1, Integer.MAX_VALUE), extension, path, channel.size());
+        active.add(new Active(transfer, channel));
+        if (thread == null) {
+            thread = new Thread(this::run, "File sender");
+            thread.setDaemon(true);
+            thread.start();
+        }
+        notifyAll();
+        return transfer;
+    }
+
+    //chunk being sent still goes, transfer stops before the next one
+    synchronized void cancel(int id) {
+        for (Active a : active) if (a.transfer.getId() == id) a.transfer.cancel();
+        for (Pending p : window) if (p.active.transfer.getId() == id) p.active.transfer.cancel();
+    }
+
+    private void run() {
+        while (true) {
+            Active next;
+            Pending head;
+            synchronized (this) {
+                try {
+                    while (active.isEmpty() && window.isEmpty()) wait();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                //window is filled first, its oldest chunk is sent once it is full or there is nothing more to read
+                next = window.size() < WINDOW ? active.poll() : null;
+                head = next == null ? window.poll() : null;
+            }
+            if (next != null) read(next);
+            else send(head);
+        }
+    }
+
+    private void read(Active a) {
+        FileTransfer transfer = a.transfer;
+        if (transfer.isCancelled()) {
+            stop(a);
+            return;
+        }
+        try {
+            long offset = a.read;
+            ByteBuffer chunk = ByteBuffer.allocate((int) Math.min(CHUNK_SIZE, transfer.getSize() - offset));
+            while (chunk.hasRemaining())
+                if (a.channel.read(chunk, offset + chunk.position()) < 0) throw new EOFException("File got shorter");
+            a.read += chunk.capacity();
+            byte[] bytes = chunk.array();
+            CompletableFuture<Message> message = CompletableFuture.supplyAsync(() -> {
+                try {
+                    return sink.encode(transfer, offset, bytes);
+                } catch (Exception e) {
+                    throw new CompletionException(e);
+                }
+            }, ForkJoinPool.commonPool());
+            synchronized (this) {
+                window.add(new Pending(a, bytes.length, message));
+                if (a.read < transfer.getSize()) active.add(a);
+            }
+            if (a.read == transfer.getSize()) close(a);
+        } catch (Exception e) {
+            e.printStackTrace();
+            transfer.cancel();
+            stop(a);
+        }
+    }
+
+    private void send(Pending pending) {
+        FileTransfer transfer = pending.active.transfer;
+        try {
+            Message message = pending.message.join();
+            if (!transfer.isCancelled()) {
+                sink.send(transfer, message);
+                transfer.add(pending.length);
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+            transfer.cancel();
+        }
+        if (transfer.isCancelled()) stop(pending.active);
+        else onProgress.accept(transfer);
+    }
+
+    //cancelled transfer is reported once, by whichever of its chunks notices it first
+    private void stop(Active a) {
+        synchronized (this) {
+            if (a.stopped) return;
+            a.stopped = true;
+        }
+        close(a);
+        onProgress.accept(a.transfer);
+    }
+
+    private static void close(Active a) {
+        try {
+            a.channel.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+}
@@ -0,0 +1,68 @@
+import java.nio.file.Path;
+
+//File sent or received in chunks; one thread moves it forward while UI reads its progress
+class FileTransfer {
+    private final int sender; //room member incoming file comes from, 0 for own files and files of peer at the other end
+    private final int id;
+    private final String extension;
+    private final Path path;
+    private final long size;
+    private volatile long done; //bytes sent or written
+    private volatile boolean cancelled;
+
+    FileTransfer(int id, String extension, Path path, long size) {
+        this(0, id, extension, path, size);
+    }
+
+    FileTransfer(int sender, int id, String extension, Path path, long size) {
+        this.sender = sender;
+        this.id = id;
+        this.extension = extension;
+        this.path = path;
+        this.size = size;
+    }
+
+    int getSender() {
+        return sender;
+    }
+
+    int getId() {
+        return id;
+    }
+
+    String getExtension() {
+        return extension;
+    }
+
+    Path getPath() {
+        return path;
+    }
+
+    long getSize() {
+        return size;
+    }
+
+    long getDone() {
+        return done;
+    }
+
+    void add(long bytes) {
+        done += bytes;
+    }
+
+    double progress() {
+        return size == 0 ? 1 : (double) done / size;
+    }
+
+    boolean isComplete() {
+        return done == size;
+    }
+
+    boolean isCancelled() {
+        return cancelled;
+    }
+
+    void cancel() {
+        cancelled = true;
+    }
+}
@@ -0,0 +1,90 @@
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+//Unit of the wire format: [varint length of type and payload][type][payload], replaces Java serialization of messages
+class Frame {
+    static final int CAPABILITIES = 0; //payload is Capabilities of sender, first frame of each side
+    static final int MESSAGE = 1; //payload is Message
+    static final int JOIN = 2; //payload is UTF-8 name of room, sent by client of RoomServer and echoed once it is in the room
+    static final int RELAYED = 3; //payload is [varint number of sender][Message], message of room member passed on by RoomServer
+    static final int DIRECT = 4; //payload is [varint number of recipient][Message], RoomServer passes it on to that member only
+    //largest chunk or attachment with the most redundant encoding fits easily, longer frame is damaged or hostile
+    static final int MAX_LENGTH = FileSender.CHUNK_SIZE * 16;
+
+    private final int type;
+    private final byte[] payload;
+
+    Frame(int type, byte[] payload) {
+        this.type = type;
+        this.payload = payload;
+    }
+
+    int getType() {
+        return type;
+    }
+
+    byte[] getPayload() {
+        return payload;
+    }
+
+    //payload is given in two parts, so large data is written from its own array without being copied behind its header;
+    //stream is not flushed, so several frames can go out together
+    static void write(DataOutputStream out, int type, byte[] head, byte[] body) throws IOException {
+        writeVarint(out, Math.addExact(1, Math.addExact(head.length, body.length)));
+        out.writeByte(type);
+        out.write(head);
+        out.write(body);
+    }
+
+    static Frame read(DataInput in) throws IOException {
+        int length = readVarint(in);
+        if (length < 1 || length > MAX_LENGTH) throw new IOException("Invalid frame length: " + length);
+        int type = in.readUnsignedByte();
+        byte[] payload = new byte[length - 1];
+        in.readFully(payload);
+        return new Frame(type, payload);
+    }
+
+    //7 bits per byte from the lowest, high bit marks that more bytes follow
+    static void writeVarint(DataOutput out, int value) throws IOException {
+        for (; (value & ~0x7F) != 0; value >>>= 7) out.writeByte(value & 0x7F | 0x80);
+        out.writeByte(value);
+    }
+
+    //varint in array of its own, for heads of frames
+    static byte[] varint(int value) {
+        byte[] bytes = new byte[5];
+        int length = 0;
+        for (; (value & ~0x7F) != 0; value >>>= 7) bytes[length++] = (byte) (value & 0x7F | 0x80);
+        bytes[length++] = (byte) value;
+        return Arrays.copyOf(bytes, length);
+    }
+
+    static void writeVarlong(DataOutput out, long value) throws IOException {
+        for (; (value & ~0x7FL) != 0; value >>>= 7) out.writeByte((int) (value & 0x7F | 0x80));
+        out.writeByte((int) value);
+    }
+
+    static int readVarint(DataInput in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift <= 28; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return value;
+        }
+        throw new IOException("Invalid varint");
+    }
+
+    static long readVarlong(DataInput in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift <= 63; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return value;
+        }
+        throw new IOException("Invalid varint");
+    }
+}
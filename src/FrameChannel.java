@@ -0,0 +1,134 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+//Frames over non-blocking socket channel: incoming bytes are collected until whole frames are there,
+//outgoing frames wait in queue until socket takes them, up to a limit of queued bytes
+class FrameChannel {
+    private static final int INITIAL_BUFFER = 1 << 14;
+    private static final int GATHER = 64; //buffers written by one call
+
+    private final SocketChannel channel;
+    private final long maxQueued;
+    private long queued; //bytes in write queue not written yet
+    private ByteBuffer readBuffer = ByteBuffer.allocate(INITIAL_BUFFER); //kept in write mode between reads
+    private final ArrayDeque<ByteBuffer> writeQueue = new ArrayDeque<>();
+    private final ByteBuffer[] gather = new ByteBuffer[GATHER];
+
+    FrameChannel(SocketChannel channel) {
+        this(channel, Long.MAX_VALUE);
+    }
+
+    FrameChannel(SocketChannel channel, long maxQueued) {
+        this.channel = channel;
+        this.maxQueued = maxQueued;
+    }
+
+    SocketChannel getChannel() {
+        return channel;
+    }
+
+    //frame as it goes over the wire, see Frame: [length][type] in its own buffer, payload wrapped without copying;
+    //buffers are read-only, so one frame can be queued to any number of channels, each of them writes its own duplicates
+    static ByteBuffer[] encode(int type, byte[] payload) {
+        return encode(type, new byte[0], payload);
+    }
+
+    static ByteBuffer[] encode(int type, byte[] head, byte[] body) {
+        int length = Math.addExact(1, Math.addExact(head.length, body.length));
+        ByteBuffer header = ByteBuffer.allocate(6 + head.length);
+        for (int value = length; ; value >>>= 7) {
+            if ((value & ~0x7F) == 0) {
+                header.put((byte) value);
+                break;
+            }
+            header.put((byte) (value & 0x7F | 0x80));
+        }
+        header.put((byte) type).put(head);
+        header.flip();
+        return new ByteBuffer[]{header.asReadOnlyBuffer(), ByteBuffer.wrap(body).asReadOnlyBuffer()};
+    }
+
+    //read what socket has and return frames completed by it; end of stream is reported as exception
+    List<Frame> read() throws IOException {
+        if (channel.read(readBuffer) < 0) throw new IOException("Connection closed");
+        List<Frame> frames = new ArrayList<>();
+        readBuffer.flip();
+        while (true) {
+            int start = readBuffer.position();
+            int length = readVarint(readBuffer);
+            if (length < 0) {
+                readBuffer.position(start);
+                break;
+            }
+            if (length < 1 || length > Frame.MAX_LENGTH) throw new IOException("Invalid frame length: " + length);
+            if (readBuffer.remaining() < length) {
+                int needed = readBuffer.position() - start + length;
+                readBuffer.position(start);
+                //frame is moved to the start of buffer by compact, buffer grows if even then it does not fit
+                if (readBuffer.capacity() < needed) {
+                    ByteBuffer larger = ByteBuffer.allocate(Math.max(needed, 2 * readBuffer.capacity()));
+                    larger.put(readBuffer);
+                    readBuffer = larger;
+                    return frames;
+                }
+                break;
+            }
+            int type = readBuffer.get() & 0xFF;
+            byte[] payload = new byte[length - 1];
+            readBuffer.get(payload);
+            frames.add(new Frame(type, payload));
+        }
+        readBuffer.compact();
+        return frames;
+    }
+
+    //varint at position of buffer, -1 if it is not complete yet
+    private static int readVarint(ByteBuffer buffer) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift <= 28; shift += 7) {
+            if (!buffer.hasRemaining()) return -1;
+            int b = buffer.get() & 0xFF;
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return value;
+        }
+        throw new IOException("Invalid varint");
+    }
+
+    //frame is not copied, only positions of its buffers are separate for this channel;
+    //false and nothing is queued when frame would take queue over its limit, peer which reads this slowly is of no use
+    boolean enqueue(ByteBuffer... frame) {
+        long size = 0;
+        for (ByteBuffer buffer : frame) size += buffer.remaining();
+        if (queued + size > maxQueued) return false;
+        for (ByteBuffer buffer : frame) writeQueue.add(buffer.duplicate());
+        queued += size;
+        return true;
+    }
+
+    boolean hasPending() {
+        return !writeQueue.isEmpty();
+    }
+
+    //write queued frames until socket is full, returns true if nothing is left;
+    //queued buffers go to socket together, so small frames and headers do not take a system call each
+    boolean flush() throws IOException {
+        while (!writeQueue.isEmpty()) {
+            int count = 0;
+            for (ByteBuffer buffer : writeQueue) {
+                if (count == GATHER) break;
+                gather[count++] = buffer;
+            }
+            queued -= channel.write(gather, 0, count);
+            boolean full = gather[count - 1].hasRemaining();
+            Arrays.fill(gather, 0, count, null);
+            while (!writeQueue.isEmpty() && !writeQueue.peek().hasRemaining()) writeQueue.poll();
+            if (full) return false;
+        }
+        return true;
+    }
+}
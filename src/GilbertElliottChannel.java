@@ -0,0 +1,43 @@
+import java.util.Random;
+
+//Bursty channel: good and bad state with their own bit error rates, state changes after each bit with given probabilities.
+//State carries over from one message to the next, as bursts of a real link do not stop at message boundaries
+class GilbertElliottChannel implements ChannelModel {
+    private final double goodErrorRate, badErrorRate, goodToBad, badToGood;
+    private final Random random;
+    private boolean bad;
+    private long stateLeft; //bits until state changes, 0 when it has to be drawn
+
+    GilbertElliottChannel(double goodErrorRate, double badErrorRate, double goodToBad, double badToGood) {
+        this(goodErrorRate, badErrorRate, goodToBad, badToGood, new Random());
+    }
+
+    GilbertElliottChannel(double goodErrorRate, double badErrorRate, double goodToBad, double badToGood, Random random) {
+        this.goodErrorRate = ChannelModel.probability(goodErrorRate);
+        this.badErrorRate = ChannelModel.probability(badErrorRate);
+        this.goodToBad = ChannelModel.probability(goodToBad);
+        this.badToGood = ChannelModel.probability(badToGood);
+        this.random = random;
+    }
+
+    @Override
+    public synchronized long apply(byte[] data) {
+        long bits = 8L * data.length, flips = 0;
+        for (long pos = 0; pos < bits; ) {
+            if (stateLeft == 0) {
+                long gap = ChannelModel.gap(random, bad ? badToGood : goodToBad);
+                stateLeft = gap == Long.MAX_VALUE ? gap : gap + 1;
+            }
+            long end = stateLeft >= bits - pos ? bits : pos + stateLeft;
+            double rate = bad ? badErrorRate : goodErrorRate;
+            for (long bit = ChannelModel.next(random, pos, rate, end); bit < end; bit = ChannelModel.next(random, bit + 1, rate, end)) {
+                data[(int) (bit >>> 3)] ^= 1 << (bit & 7);
+                flips++;
+            }
+            if (stateLeft != Long.MAX_VALUE) stateLeft -= end - pos;
+            if (stateLeft == 0) bad = !bad;
+            pos = end;
+        }
+        return flips;
+    }
+}
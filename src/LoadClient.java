@@ -0,0 +1,120 @@
+import algorithms.Capabilities;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.BooleanSupplier;
+
+//Headless clients of RoomServer on one selector thread, for trying how the server holds up on one machine:
+//clients are spread over rooms, each of them sends messages to its room and received copies are counted
+class LoadClient {
+    private static final long TIMEOUT_MILLIS = 60_000;
+
+    private final Selector selector;
+    private final List<FrameChannel> clients = new ArrayList<>();
+    private int joined;
+    private long received;
+
+    private LoadClient() throws IOException {
+        selector = Selector.open();
+    }
+
+    private void connect(String host, int port, int count, int rooms) throws IOException {
+        byte[] capabilities = Capabilities.local().toBytes();
+        for (int i = 0; i < count; i++) {
+            SocketChannel socket = SocketChannel.open(new InetSocketAddress(host, port));
+            socket.configureBlocking(false);
+            FrameChannel client = new FrameChannel(socket);
+            socket.register(selector, SelectionKey.OP_READ, client);
+            client.enqueue(FrameChannel.encode(Frame.CAPABILITIES, capabilities));
+            client.enqueue(FrameChannel.encode(Frame.JOIN, ("room " + i % rooms).getBytes(StandardCharsets.UTF_8)));
+            flush(client);
+            clients.add(client);
+        }
+    }
+
+    private void flush(FrameChannel client) throws IOException {
+        SelectionKey key = client.getChannel().keyFor(selector);
+        key.interestOps(client.flush() ? SelectionKey.OP_READ : SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+    }
+
+    //run selector until condition holds or time is out, returns false on timeout
+    private boolean await(BooleanSupplier condition) throws IOException {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (!condition.getAsBoolean()) {
+            long left = deadline - System.currentTimeMillis();
+            if (left <= 0) return false;
+            selector.select(left);
+            Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+            while (keys.hasNext()) {
+                SelectionKey key = keys.next();
+                keys.remove();
+                FrameChannel client = (FrameChannel) key.attachment();
+                if (key.isReadable())
+                    for (Frame frame : client.read()) {
+                        if (frame.getType() == Frame.JOIN) joined++;
+                        else if (frame.getType() == Frame.RELAYED) received++;
+                    }
+                if (key.isWritable()) flush(client);
+            }
+        }
+        return true;
+    }
+
+    //args: host port clients rooms messages size
+    public static void main(String[] args) throws IOException {
+        String host = args.length > 0 ? args[0] : "127.0.0.1";
+        int port = args.length > 1 ? Integer.parseInt(args[1]) : 8080;
+        int count = args.length > 2 ? Integer.parseInt(args[2]) : 1000;
+        int rooms = args.length > 3 ? Integer.parseInt(args[3]) : 10;
+        int messages = args.length > 4 ? Integer.parseInt(args[4]) : 10;
+        int size = args.length > 5 ? Integer.parseInt(args[5]) : 100;
+        run(host, port, count, rooms, messages, size);
+    }
+
+    //returns true if every client joined and every message reached every other member of its room in time
+    static boolean run(String host, int port, int count, int rooms, int messages, int size) throws IOException {
+        if (count <= 0 || rooms <= 0 || messages < 0 || size < 0) throw new IllegalArgumentException("Invalid arguments");
+
+        LoadClient load = new LoadClient();
+        try {
+            long start = System.nanoTime();
+            load.connect(host, port, count, rooms);
+            if (!load.await(() -> load.joined == count)) {
+                System.out.println("Clients did not join in time");
+                return false;
+            }
+            long joined = System.nanoTime();
+            System.out.printf("%d clients joined %d rooms in %d ms%n", count, rooms, (joined - start) / 1_000_000);
+
+            //each message reaches the other members of room of its sender
+            long expected = 0;
+            for (int i = 0; i < count; i++) expected += (long) messages * ((count - 1 - i % rooms) / rooms);
+            byte[] data = new byte[size];
+            ThreadLocalRandom.current().nextBytes(data);
+            for (FrameChannel client : load.clients) {
+                for (int m = 0; m < messages; m++)
+                    client.enqueue(FrameChannel.encode(Frame.MESSAGE, new Message(Message.TEXT, data).head(), data));
+                load.flush(client);
+            }
+            long total = expected;
+            boolean done = load.await(() -> load.received >= total);
+            long elapsed = Math.max(1, System.nanoTime() - joined);
+            long received = load.received;
+            System.out.printf("%d of %d messages received in %d ms, %.0f messages/s, %.1f MB/s%s%n",
+                    received, expected, elapsed / 1_000_000, received * 1e9 / elapsed, received * (double) size * 1e3 / elapsed,
+                    done ? "" : " (timed out)");
+            return done && received == expected;
+        } finally {
+            for (FrameChannel client : load.clients) client.getChannel().close();
+            load.selector.close();
+        }
+    }
+}
@@ -1,18 +1,173 @@
-import java.io.Serializable;
+import algorithms.CodecHeader;
+import algorithms.CompressionType;
 
-class Message implements Serializable {
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class Message {
+    static final String TEXT = "-1"; //extension of chat text
+    static final String REPORT = "-2"; //extension of decoding report sent back to sender
+    static final String NACK = "-3"; //blocks of message id which arrived damaged, no blocks acknowledges whole message
+    static final String RESEND = "-4"; //blocks of message id sent again
+    static final String CANCEL_SEND = "-5"; //sender stopped file transfer of id, receiver drops what it wrote
+    static final String CANCEL_RECEIVE = "-6"; //receiver does not want file transfer of id, sender stops
+
+    private static final AtomicInteger NEXT_ID = new AtomicInteger();
+
+    private int id;
     private String extension;
+    private byte[] codecs; //CodecHeader of data, receiver decodes with it instead of guessing from extension
+    private int[] blocks;
+    private int transfer; //file transfer this message is chunk of, 0 for whole messages
+    private long offset; //position of chunk in file
+    private long size; //length of whole file
     private byte[] data;
+    private int sender; //number of room member message came from, not sent; 0 when it came from peer at the other end of connection
 
     Message(String extension, byte[] data) {
+        this(extension, new CodecHeader(CompressionType.STORED, false), data);
+    }
+
+    Message(String extension, CodecHeader codecs, byte[] data) {
+        this.id = NEXT_ID.incrementAndGet();
         this.extension = extension;
+        this.codecs = codecs.toBytes();
         this.data = data;
     }
 
+    //NACK or RESEND of blocks of earlier message
+    Message(String extension, int id, int[] blocks, byte[] data) {
+        this(extension, data);
+        this.id = id;
+        this.blocks = blocks;
+    }
+
+    private Message(int id, String extension, byte[] codecs, int[] blocks, byte[] data) {
+        this.id = id;
+        this.extension = extension;
+        this.codecs = codecs;
+        this.blocks = blocks;
+        this.data = data;
+    }
+
+    //fields in front of data: [id][extension length + 1, 0 is null][extension][codecs length][codecs][block count + 1, 0 is null][blocks]
+    //[transfer, 0 is none][offset][size], offset and size only for chunks; all numbers are varints; data follows as the rest of frame
+    byte[] head() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(32);
+        DataOutputStream out = new DataOutputStream(bytes);
+        Frame.writeVarint(out, id);
+        if (extension == null) Frame.writeVarint(out, 0);
+        else {
+            byte[] ext = extension.getBytes(StandardCharsets.UTF_8);
+            Frame.writeVarint(out, ext.length + 1);
+            out.write(ext);
+        }
+        Frame.writeVarint(out, codecs.length);
+        out.write(codecs);
+        Frame.writeVarint(out, blocks == null ? 0 : blocks.length + 1);
+        if (blocks != null) for (int block : blocks) Frame.writeVarint(out, block);
+        Frame.writeVarint(out, transfer);
+        if (transfer != 0) {
+            Frame.writeVarlong(out, offset);
+            Frame.writeVarlong(out, size);
+        }
+        return bytes.toByteArray();
+    }
+
+    //message from payload of MESSAGE frame
+    static Message read(byte[] payload) throws IOException {
+        return read(new DataInputStream(new ByteArrayInputStream(payload)));
+    }
+
+    //message from the rest of frame payload, in has to be over array, so available is what is left of it
+    static Message read(DataInputStream in) throws IOException {
+        int id = Frame.readVarint(in);
+        String extension = null;
+        int length = Frame.readVarint(in);
+        if (length > in.available() + 1) throw new IOException("Invalid message extension");
+        if (length > 0) {
+            byte[] ext = new byte[length - 1];
+            in.readFully(ext);
+            extension = new String(ext, StandardCharsets.UTF_8);
+        }
+        length = Frame.readVarint(in);
+        if (length > in.available()) throw new IOException("Invalid message codecs");
+        byte[] codecs = new byte[length];
+        in.readFully(codecs);
+        int[] blocks = null;
+        int count = Frame.readVarint(in);
+        if (count > in.available() + 1) throw new IOException("Invalid message blocks");
+        if (count > 0) {
+            blocks = new int[count - 1];
+            for (int i = 0; i < blocks.length; i++) blocks[i] = Frame.readVarint(in);
+        }
+        int transfer = Frame.readVarint(in);
+        long offset = 0, size = 0;
+        if (transfer != 0) {
+            offset = Frame.readVarlong(in);
+            size = Frame.readVarlong(in);
+            if (offset < 0 || size < offset) throw new IOException("Invalid message chunk");
+        }
+        byte[] data = new byte[in.available()];
+        in.readFully(data);
+        Message message = new Message(id, extension, codecs, blocks, data);
+        message.setChunk(transfer, offset, size);
+        return message;
+    }
+
+    int getId() {
+        return id;
+    }
+
     String getExtension() {
         return extension;
     }
 
+    CodecHeader getCodecs() {
+        return CodecHeader.fromBytes(codecs);
+    }
+
+    int[] getBlocks() {
+        return blocks;
+    }
+
+    //message carries data of file transfer starting at offset
+    void setChunk(int transfer, long offset, long size) {
+        this.transfer = transfer;
+        this.offset = offset;
+        this.size = size;
+    }
+
+    int getTransfer() {
+        return transfer;
+    }
+
+    long getOffset() {
+        return offset;
+    }
+
+    long getSize() {
+        return size;
+    }
+
+    //sender and id of its message or transfer together, ids are only unique among those of one sender
+    static long key(int sender, int id) {
+        return (long) sender << 32 | id & 0xFFFFFFFFL;
+    }
+
+    int getSender() {
+        return sender;
+    }
+
+    void setSender(int sender) {
+        this.sender = sender;
+    }
+
     void setData(byte[] data) {
         this.data = data;
     }
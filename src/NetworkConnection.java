@@ -1,16 +1,25 @@
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
-import java.io.Serializable;
+import algorithms.Capabilities;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
 import java.net.ServerSocket;
 import java.net.Socket;
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.concurrent.ThreadLocalRandom;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.function.Consumer;
 
 abstract class NetworkConnection {
     private ConnectionThread connThread = new ConnectionThread();
     private Consumer<Message> onReceiveCallback;
+    private static final long QUEUE_CAPACITY = 1 << 23; //bytes of file chunks waiting for slow peer before more are refused
+    private static final long INTERACTIVE_CAPACITY = 1 << 24; //bytes of chat and control messages, whole attachments among them
+    //simulated noise on received data, about as many flipped bits as the former 1% of bytes with one flipped bit each
+    private volatile ChannelModel noise = new BinarySymmetricChannel(0.01 / 8);
+    private volatile Capabilities capabilities = Capabilities.baseline(); //codecs both sides support, known after handshake
 
     protected abstract boolean isServer();
 
@@ -18,6 +27,11 @@ abstract class NetworkConnection {
 
     protected abstract int getPort();
 
+    //room to join when the other side is RoomServer, null for direct connection
+    protected String getRoom() {
+        return null;
+    }
+
     NetworkConnection(Consumer<Message> onReceiveCallback) {
         this.onReceiveCallback = onReceiveCallback;
         connThread.setDaemon(true);
@@ -31,47 +45,96 @@ abstract class NetworkConnection {
         if (connThread.socket != null) connThread.socket.close();
     }
 
-    void send(Serializable data) throws Exception {
-        connThread.out.writeObject(data);
+    //null receives data as it came, can be changed while connected
+    void setNoise(ChannelModel noise) {
+        this.noise = noise;
+    }
+
+    Capabilities getCapabilities() {
+        return capabilities;
+    }
+
+    void send(Message message) throws Exception {
+        send(message, false, null);
+    }
+
+    //message is only queued, caller never waits for socket; onSent gets null once it is written or error which stopped it.
+    //Bulk messages such as file chunks go after every queued chat message; both kinds are refused when their part of queue is full
+    //or connection is closed
+    void send(Message message, boolean bulk, Consumer<Exception> onSent) throws Exception {
+        offer(Frame.MESSAGE, message.head(), message.getData(), bulk, onSent);
+    }
+
+    //reply to one member of room, such as NACK or REPORT, goes through RoomServer to that member only;
+    //recipient 0 is peer at the other end of connection
+    void send(Message message, int recipient) throws Exception {
+        if (recipient == 0) {
+            send(message);
+            return;
+        }
+        byte[] number = Frame.varint(recipient), head = message.head();
+        byte[] directed = Arrays.copyOf(number, number.length + head.length);
+        System.arraycopy(head, 0, directed, number.length, head.length);
+        offer(Frame.DIRECT, directed, message.getData(), false, null);
+    }
+
+    private void offer(int type, byte[] head, byte[] body, boolean bulk, Consumer<Exception> onSent) throws Exception {
+        SendQueue queue = connThread.queue;
+        if (queue == null) throw new IOException("Not connected");
+        if (head.length + body.length >= Frame.MAX_LENGTH) throw new IOException("Message is too long");
+        if (!queue.offer(type, head, body, bulk, onSent))
+            throw new IOException("Send queue is full or connection is closed");
+    }
+
+    //for threads producing many messages, waits until queue takes message of given size
+    void awaitCapacity(long bytes) throws Exception {
+        SendQueue queue = connThread.queue;
+        if (queue == null) throw new IOException("Not connected");
+        queue.awaitCapacity(bytes);
     }
 
     private class ConnectionThread extends Thread {
         private Socket socket;
-        private ObjectInputStream in;
-        private ObjectOutputStream out;
+        private DataInputStream in;
+        private volatile SendQueue queue;
 
         @Override
         public void run() {
             try {
                 socket = isServer() ? new ServerSocket(getPort()).accept() : new Socket(getIP(), getPort());
-                out = new ObjectOutputStream(socket.getOutputStream());
-                in = new ObjectInputStream(socket.getInputStream());
+                //both sides first send their capabilities, peer without handshake starts with message and gets baseline codecs;
+                //queue is published only after that, so no message is written in the middle of handshake
+                DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream(), 1 << 16));
+                Frame.write(out, Frame.CAPABILITIES, Capabilities.local().toBytes(), new byte[0]);
+                if (getRoom() != null) Frame.write(out, Frame.JOIN, getRoom().getBytes(StandardCharsets.UTF_8), new byte[0]);
+                out.flush();
+                queue = new SendQueue(out, QUEUE_CAPACITY, INTERACTIVE_CAPACITY);
+                in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
                 socket.setTcpNoDelay(true);
                 while (true) {
-                    Message message = (Message) in.readObject();
-                    message.setData(generateNoises(message.getData(), 1));
-                    onReceiveCallback.accept(message);
+                    Frame frame = Frame.read(in);
+                    if (frame.getType() == Frame.CAPABILITIES)
+                        capabilities = Capabilities.local().intersect(Capabilities.fromBytes(frame.getPayload()));
+                    else if (frame.getType() == Frame.MESSAGE) receive(Message.read(frame.getPayload()));
+                    else if (frame.getType() == Frame.RELAYED) {
+                        DataInputStream relayed = new DataInputStream(new ByteArrayInputStream(frame.getPayload()));
+                        int sender = Frame.readVarint(relayed);
+                        Message message = Message.read(relayed);
+                        message.setSender(sender);
+                        receive(message);
+                    }
+                    //frames of unknown type come from newer peer and are skipped
                 }
             } catch (Exception e) {
+                if (queue != null) queue.close();
                 onReceiveCallback.accept(new Message(null, "Connection closed".getBytes()));
             }
         }
-    }
 
-    private static byte[] generateNoises(byte[] in, float level) {
-        HashMap<Integer, HashSet<Integer>> map = new HashMap<>();
-        while (map.size() < in.length * (level / 100)) {
-            int by = ThreadLocalRandom.current().nextInt(0, in.length),
-                    bi = ThreadLocalRandom.current().nextInt(0, 8);
-            if (!map.containsKey(by)) {
-                map.put(by, new HashSet<>());
-                in[by] ^= (1 << bi);
-                map.get(by).add(bi);
-            } else if (!map.get(by).contains(bi)) {
-                in[by] ^= (1 << bi);
-                map.get(by).add(bi);
-            }
+        private void receive(Message message) {
+            ChannelModel model = noise;
+            if (model != null) model.apply(message.getData());
+            onReceiveCallback.accept(message);
         }
-        return in;
     }
 }
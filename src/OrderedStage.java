@@ -0,0 +1,83 @@
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+//Stage of receive pipeline: items are worked on by a pool of threads but handed to the next stage in the order they came.
+//At most capacity items are in stage at once, when it is full put waits, so a slow stage holds back the ones before it
+class OrderedStage<I, O> {
+    private final Function<I, O> work;
+    private final Consumer<O> next; //called in order of put, by one worker at a time
+    private final Semaphore space;
+    private final ExecutorService workers;
+    private final Map<Long, O> done = new HashMap<>(); //results waiting for older items
+    private long nextIn, nextOut;
+    private boolean emitting; //some thread is handing results to next stage
+
+    OrderedStage(String name, int threads, int capacity, Function<I, O> work, Consumer<O> next) {
+        this.work = work;
+        this.next = next;
+        space = new Semaphore(capacity);
+        workers = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    //item which fails is dropped, the ones after it still go on
+    void put(I item) {
+        space.acquireUninterruptibly();
+        long sequence;
+        synchronized (this) {
+            sequence = nextIn++;
+        }
+        workers.execute(() -> {
+            O result = null;
+            try {
+                result = work.apply(item);
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            } finally {
+                //also after Error, else every later item would wait for this one for ever
+                finish(sequence, result);
+            }
+        });
+    }
+
+    //one thread at a time hands results on, outside of lock, so workers of this stage do not wait while next stage is full
+    private void finish(long sequence, O result) {
+        synchronized (this) {
+            done.put(sequence, result);
+            if (emitting) return;
+            emitting = true;
+        }
+        while (true) {
+            O ready;
+            synchronized (this) {
+                //cleared together with the check, so result stored meanwhile is handed on by its own finish
+                if (!done.containsKey(nextOut)) {
+                    emitting = false;
+                    return;
+                }
+                ready = done.remove(nextOut++);
+            }
+            space.release();
+            try {
+                if (ready != null) next.accept(ready);
+            } catch (RuntimeException | Error e) {
+                synchronized (this) {
+                    emitting = false;
+                }
+                throw e;
+            }
+        }
+    }
+
+    void shutdown() {
+        workers.shutdownNow();
+    }
+}
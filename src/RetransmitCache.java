@@ -0,0 +1,65 @@
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+//Messages kept for retransmission of their blocks: payloads sent with checked blocks and received ones waiting for resent blocks.
+//Answer may never come, peer can leave or its reply can be lost, and in room one member's acknowledgement is not enough,
+//so oldest messages are dropped once they are too old or all of them take too much memory
+class RetransmitCache<K> {
+    private static final long MAX_AGE = TimeUnit.MINUTES.toNanos(1);
+    private static final long MAX_BYTES = 1 << 26;
+
+    private static class Entry {
+        private final Message message;
+        private final long time = System.nanoTime();
+
+        Entry(Message message) {
+            this.message = message;
+        }
+    }
+
+    private final LinkedHashMap<K, Entry> entries = new LinkedHashMap<>(); //oldest first
+    private long bytes;
+
+    synchronized void put(K key, Message message) {
+        remove(key);
+        entries.put(key, new Entry(message));
+        bytes += message.getData().length;
+        long now = System.nanoTime();
+        Iterator<Entry> oldest = entries.values().iterator();
+        while (oldest.hasNext()) {
+            Entry entry = oldest.next();
+            if (bytes <= MAX_BYTES && now - entry.time <= MAX_AGE) break;
+            bytes -= entry.message.getData().length;
+            oldest.remove();
+        }
+    }
+
+    synchronized Message get(K key) {
+        Entry entry = entries.get(key);
+        return entry == null ? null : entry.message;
+    }
+
+    synchronized void remove(K key) {
+        Entry entry = entries.remove(key);
+        if (entry != null) bytes -= entry.message.getData().length;
+    }
+
+    //chunks of transfer which was cancelled or failed
+    synchronized void removeTransfer(int sender, int transfer) {
+        Iterator<Map.Entry<K, Entry>> it = entries.entrySet().iterator();
+        while (it.hasNext()) {
+            Message message = it.next().getValue().message;
+            if (message.getSender() == sender && message.getTransfer() == transfer) {
+                bytes -= message.getData().length;
+                it.remove();
+            }
+        }
+    }
+
+    synchronized void clear() {
+        entries.clear();
+        bytes = 0;
+    }
+}
@@ -0,0 +1,190 @@
+import algorithms.Capabilities;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+//Relay for many clients on one selector thread: every client is in one named room and its messages go to everybody else in it.
+//Messages are passed on as they came, so codecs of a room are what all of its members support; each of them carries number
+//of its sender, so replies such as NACK go back to that member only and message ids of different members do not mix
+class RoomServer {
+    static final String DEFAULT_ROOM = ""; //room of clients which did not join any
+    private static final long MAX_QUEUED = 1 << 23; //bytes waiting for one peer, peer which falls further behind is dropped
+
+    private final int port;
+    private final Map<String, Set<Peer>> rooms = new HashMap<>();
+    private final Map<String, byte[]> announced = new HashMap<>(); //capabilities last sent to members of room
+    private final Map<Integer, Peer> peers = new HashMap<>(); //by number
+    private int lastNumber;
+    private Selector selector;
+
+    private static class Peer {
+        private final FrameChannel channel;
+        private final int number; //never 0, which stands for peer at the other end of connection
+        private final byte[] head; //number as head of frames relayed from this peer
+        private String room = DEFAULT_ROOM;
+        private Capabilities capabilities = Capabilities.baseline();
+
+        Peer(FrameChannel channel, int number) {
+            this.channel = channel;
+            this.number = number;
+            head = Frame.varint(number);
+        }
+    }
+
+    RoomServer(int port) {
+        this.port = port;
+    }
+
+    void run() throws IOException {
+        selector = Selector.open();
+        ServerSocketChannel server = ServerSocketChannel.open();
+        server.bind(new InetSocketAddress(port), 1024);
+        server.configureBlocking(false);
+        server.register(selector, SelectionKey.OP_ACCEPT);
+        while (true) {
+            selector.select();
+            Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+            while (keys.hasNext()) {
+                SelectionKey key = keys.next();
+                keys.remove();
+                if (!key.isValid()) continue;
+                if (key.isAcceptable()) accept(server);
+                else {
+                    Peer peer = (Peer) key.attachment();
+                    try {
+                        if (key.isReadable()) read(peer);
+                        if (key.isValid() && key.isWritable()) flush(peer);
+                    } catch (IOException e) {
+                        remove(peer);
+                    }
+                }
+            }
+        }
+    }
+
+    private void accept(ServerSocketChannel server) throws IOException {
+        SocketChannel socket;
+        while ((socket = server.accept()) != null) {
+            socket.configureBlocking(false);
+            socket.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            do lastNumber = lastNumber == Integer.MAX_VALUE ? 1 : lastNumber + 1;
+            while (peers.containsKey(lastNumber));
+            Peer peer = new Peer(new FrameChannel(socket, MAX_QUEUED), lastNumber);
+            peers.put(peer.number, peer);
+            socket.register(selector, SelectionKey.OP_READ, peer);
+            rooms.computeIfAbsent(peer.room, r -> new HashSet<>()).add(peer);
+        }
+    }
+
+    private void read(Peer peer) throws IOException {
+        for (Frame frame : peer.channel.read()) {
+            if (!peer.channel.getChannel().isOpen()) return; //removed while answering earlier frame
+            if (frame.getType() == Frame.CAPABILITIES) {
+                peer.capabilities = Capabilities.local().intersect(parse(frame.getPayload()));
+                announce(peer.room, peer);
+            } else if (frame.getType() == Frame.JOIN) {
+                String room = new String(frame.getPayload(), StandardCharsets.UTF_8);
+                leave(peer);
+                peer.room = room;
+                rooms.computeIfAbsent(room, r -> new HashSet<>()).add(peer);
+                send(peer, FrameChannel.encode(Frame.JOIN, frame.getPayload()));
+                announce(room, peer);
+            } else if (frame.getType() == Frame.MESSAGE) {
+                //frame is encoded once for the whole room; members are copied, one whose socket fails is removed from room while relaying
+                ByteBuffer[] relayed = FrameChannel.encode(Frame.RELAYED, peer.head, frame.getPayload());
+                for (Peer member : rooms.get(peer.room).toArray(new Peer[0]))
+                    if (member != peer) send(member, relayed);
+            } else if (frame.getType() == Frame.DIRECT) {
+                //reply to one member, dropped when it already left room
+                DataInputStream in = new DataInputStream(new ByteArrayInputStream(frame.getPayload()));
+                Peer recipient = peers.get(Frame.readVarint(in));
+                byte[] message = new byte[in.available()];
+                in.readFully(message);
+                if (recipient != null && recipient != peer && recipient.room.equals(peer.room))
+                    send(recipient, FrameChannel.encode(Frame.RELAYED, peer.head, message));
+            }
+            //frames of unknown type come from newer client and are not relayed
+        }
+    }
+
+    private static Capabilities parse(byte[] payload) throws IOException {
+        try {
+            return Capabilities.fromBytes(payload);
+        } catch (IllegalArgumentException e) {
+            throw new IOException(e.getMessage());
+        }
+    }
+
+    //peer whose socket is full gets the rest when selector says it can write again
+    private void send(Peer peer, ByteBuffer[] frame) {
+        if (!peer.channel.enqueue(frame)) {
+            remove(peer);
+            return;
+        }
+        try {
+            flush(peer);
+        } catch (IOException e) {
+            remove(peer);
+        }
+    }
+
+    private void flush(Peer peer) throws IOException {
+        SelectionKey key = peer.channel.getChannel().keyFor(selector);
+        if (key == null || !key.isValid()) return;
+        key.interestOps(peer.channel.flush() ? SelectionKey.OP_READ : SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+    }
+
+    private void leave(Peer peer) {
+        Set<Peer> members = rooms.get(peer.room);
+        if (members == null || !members.remove(peer)) return;
+        if (members.isEmpty()) {
+            rooms.remove(peer.room);
+            announced.remove(peer.room);
+        } else announce(peer.room, null);
+    }
+
+    private void remove(Peer peer) {
+        SelectionKey key = peer.channel.getChannel().keyFor(selector);
+        if (key == null || !key.isValid()) return;
+        key.cancel();
+        peers.remove(peer.number);
+        try {
+            peer.channel.getChannel().close();
+        } catch (IOException ignored) {
+        }
+        leave(peer);
+    }
+
+    //every member is told codecs the whole room supports, so any of them can decode what one of them sends;
+    //when they did not change only peer which just came is told, so thousands of joins do not send thousands of frames each
+    private void announce(String room, Peer peer) {
+        Set<Peer> members = rooms.get(room);
+        if (members == null) return;
+        Capabilities common = Capabilities.local();
+        for (Peer member : members) common = common.intersect(member.capabilities);
+        byte[] payload = common.toBytes();
+        ByteBuffer[] frame = FrameChannel.encode(Frame.CAPABILITIES, payload);
+        if (Arrays.equals(payload, announced.put(room, payload))) {
+            if (peer != null) send(peer, frame);
+        } else for (Peer member : members.toArray(new Peer[0])) send(member, frame);
+    }
+
+    public static void main(String[] args) throws IOException {
+        new RoomServer(args.length > 0 ? Integer.parseInt(args[0]) : 8080).run();
+    }
+}
@@ -0,0 +1,136 @@
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+//Frames waiting for the socket, written by one thread so senders never wait for the peer: chat frames go before bulk ones,
+//and frames queued meanwhile are written into the buffer together and flushed once. Bulk and other frames are bounded
+//separately, producer threads of bulk frames wait for room; chat and control frames have a larger bound of their own, so file
+//chunks can never crowd out NACK or RESEND a checked message waits for, yet a stalled peer cannot make them pile up for ever
+class SendQueue {
+    private static final int FLUSH_BYTES = 1 << 16; //written frames are flushed at least this often while more keep coming
+
+    private static class Entry {
+        private final int type;
+        private final byte[] head, body;
+        private final boolean bulk;
+        private final Consumer<Exception> onSent;
+
+        Entry(int type, byte[] head, byte[] body, boolean bulk, Consumer<Exception> onSent) {
+            this.type = type;
+            this.head = head;
+            this.body = body;
+            this.bulk = bulk;
+            this.onSent = onSent;
+        }
+
+        long size() {
+            return (long) head.length + body.length;
+        }
+    }
+
+    private final DataOutputStream out;
+    private final long capacity; //bytes of bulk frames
+    private final long interactiveCapacity; //bytes of chat and control frames
+    private final ArrayDeque<Entry> interactive = new ArrayDeque<>(), bulk = new ArrayDeque<>();
+    private long queued; //bytes of bulk frames in queue
+    private long interactiveQueued;
+    private IOException failure; //set when socket failed or connection was closed, queue takes nothing after it
+
+    SendQueue(DataOutputStream out, long capacity, long interactiveCapacity) {
+        this.out = out;
+        this.capacity = capacity;
+        this.interactiveCapacity = interactiveCapacity;
+        Thread writer = new Thread(this::run, "Send queue");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    //never blocks: false when queue is closed or frame does not fit its bound; onSent, if given, is called by writer thread
+    //with null once frame is flushed or with error which stopped it; frame larger than its bound is taken when no frame of its kind waits
+    synchronized boolean offer(int type, byte[] head, byte[] body, boolean bulk, Consumer<Exception> onSent) {
+        Entry entry = new Entry(type, head, body, bulk, onSent);
+        if (failure != null || bulk && full(queued, entry.size(), capacity)
+                || !bulk && full(interactiveQueued, entry.size(), interactiveCapacity)) return false;
+        if (bulk) {
+            this.bulk.add(entry);
+            queued += entry.size();
+        } else {
+            interactive.add(entry);
+            interactiveQueued += entry.size();
+        }
+        notifyAll();
+        return true;
+    }
+
+    private static boolean full(long queued, long bytes, long capacity) {
+        return queued > 0 && queued + bytes > capacity;
+    }
+
+    //wait until bulk frame of given size would be taken, for producers on their own threads such as file sender
+    synchronized void awaitCapacity(long bytes) throws InterruptedException, IOException {
+        while (failure == null && full(queued, bytes, capacity)) wait();
+        if (failure != null) throw failure;
+    }
+
+    //frames not written yet are failed
+    void close() {
+        fail(new IOException("Connection closed"));
+    }
+
+    private synchronized Entry take(boolean wait) throws InterruptedException, IOException {
+        while (wait && failure == null && interactive.isEmpty() && bulk.isEmpty()) wait();
+        if (failure != null) throw failure;
+        Entry entry = !interactive.isEmpty() ? interactive.poll() : bulk.poll();
+        if (entry != null && entry.bulk) {
+            queued -= entry.size();
+            notifyAll();
+        } else if (entry != null) interactiveQueued -= entry.size();
+        return entry;
+    }
+
+    private void run() {
+        List<Entry> written = new ArrayList<>();
+        long unflushed = 0;
+        try {
+            while (true) {
+                //waits only when everything written so far is flushed
+                Entry entry = take(written.isEmpty());
+                if (entry != null) {
+                    Frame.write(out, entry.type, entry.head, entry.body);
+                    written.add(entry);
+                    unflushed += entry.size();
+                }
+                if (entry == null || unflushed >= FLUSH_BYTES) {
+                    out.flush();
+                    for (Entry e : written) if (e.onSent != null) e.onSent.accept(null);
+                    written.clear();
+                    unflushed = 0;
+                }
+            }
+        } catch (IOException e) {
+            for (Entry w : written) if (w.onSent != null) w.onSent.accept(e);
+            fail(e);
+        } catch (InterruptedException e) {
+            fail(new IOException("Send queue was interrupted"));
+        }
+    }
+
+    private void fail(IOException e) {
+        List<Entry> pending;
+        synchronized (this) {
+            if (failure != null) return;
+            failure = e;
+            pending = new ArrayList<>(interactive);
+            pending.addAll(bulk);
+            interactive.clear();
+            bulk.clear();
+            queued = 0;
+            interactiveQueued = 0;
+            notifyAll();
+        }
+        for (Entry entry : pending) if (entry.onSent != null) entry.onSent.accept(e);
+    }
+}
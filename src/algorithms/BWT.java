@@ -0,0 +1,155 @@
+package algorithms;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+//Block-sorting compression: Burrows-Wheeler transform, move-to-front, then RLE and Huffman of each block
+public class BWT implements Compression {
+    private static final int DEFAULT_BLOCK_SIZE = 1 << 19;
+
+    private final BlockCompression blocks; //blocks are sorted and coded in parallel
+
+    public BWT() {
+        this(DEFAULT_BLOCK_SIZE, ForkJoinPool.commonPool());
+    }
+
+    public BWT(int blockSize, ForkJoinPool pool) {
+        this.blocks = new BlockCompression(new Block(), blockSize, pool);
+    }
+
+    @Override
+    public byte[] compress(byte[] byteArray) {
+        return blocks.compress(byteArray);
+    }
+
+    @Override
+    public byte[] decompress(byte[] byteArray) {
+        return blocks.decompress(byteArray);
+    }
+
+    //Transform of one block: [index of original rotation][Huffman(RLE(MTF(last column of sorted rotations)))]
+    private static class Block implements Compression {
+        private final Compression rle = new RLE(true);
+        private final Compression huffman = new Huffman();
+
+        @Override
+        public byte[] compress(byte[] byteArray) {
+            int n = byteArray.length;
+            byte[] last = new byte[n];
+            int primary = 0;
+            int[] rotations = sortRotations(byteArray);
+            for (int i = 0; i < n; i++) {
+                int start = rotations[i];
+                if (start == 0) primary = i;
+                last[i] = byteArray[(start == 0 ? n : start) - 1];
+            }
+            moveToFront(last);
+            byte[] coded = huffman.compress(rle.compress(last));
+            byte[] result = new byte[4 + coded.length];
+            result[0] = (byte) (primary >>> 24);
+            result[1] = (byte) (primary >>> 16);
+            result[2] = (byte) (primary >>> 8);
+            result[3] = (byte) primary;
+            System.arraycopy(coded, 0, result, 4, coded.length);
+            return result;
+        }
+
+        @Override
+        public byte[] decompress(byte[] byteArray) {
+            int primary = (byteArray[0] & 0xFF) << 24 | (byteArray[1] & 0xFF) << 16 | (byteArray[2] & 0xFF) << 8 | byteArray[3] & 0xFF;
+            byte[] coded = new byte[byteArray.length - 4];
+            System.arraycopy(byteArray, 4, coded, 0, coded.length);
+            byte[] last = rle.decompress(huffman.decompress(coded));
+            int n = last.length;
+            if (n == 0) return last;
+            if (primary < 0 || primary >= n) throw new IllegalArgumentException("Invalid BWT index");
+            inverseMoveToFront(last);
+
+            //LF mapping: row of rotation which starts one byte earlier
+            int[] count = new int[257];
+            for (byte b : last) count[(b & 0xFF) + 1]++;
+            for (int i = 1; i < 257; i++) count[i] += count[i - 1];
+            int[] lf = new int[n];
+            for (int i = 0; i < n; i++) lf[i] = count[last[i] & 0xFF]++;
+
+            //original block is read backwards starting from its own row
+            byte[] block = new byte[n];
+            int row = primary;
+            for (int i = n - 1; i >= 0; i--) {
+                block[i] = last[row];
+                row = lf[row];
+            }
+            return block;
+        }
+    }
+
+    //start positions of all cyclic rotations of block in sorted order, prefix doubling with counting sort
+    static int[] sortRotations(byte[] block) {
+        int n = block.length;
+        int[] p = new int[n], c = new int[n], pn = new int[n], cn = new int[n];
+        int[] count = new int[Math.max(256, n)];
+        for (byte b : block) count[b & 0xFF]++;
+        for (int i = 1; i < 256; i++) count[i] += count[i - 1];
+        for (int i = n - 1; i >= 0; i--) p[--count[block[i] & 0xFF]] = i;
+        int classes = 1;
+        for (int i = 1; i < n; i++) {
+            if (block[p[i]] != block[p[i - 1]]) classes++;
+            c[p[i]] = classes - 1;
+        }
+
+        //rotations are sorted by first 2h bytes using their order by first h bytes
+        for (int h = 1; h < n && classes < n; h <<= 1) {
+            for (int i = 0; i < n; i++) {
+                pn[i] = p[i] - h;
+                if (pn[i] < 0) pn[i] += n;
+            }
+            Arrays.fill(count, 0, classes, 0);
+            for (int i = 0; i < n; i++) count[c[pn[i]]]++;
+            for (int i = 1; i < classes; i++) count[i] += count[i - 1];
+            for (int i = n - 1; i >= 0; i--) p[--count[c[pn[i]]]] = pn[i];
+            cn[p[0]] = 0;
+            classes = 1;
+            for (int i = 1; i < n; i++) {
+                int a = p[i] + h, b = p[i - 1] + h;
+                if (a >= n) a -= n;
+                if (b >= n) b -= n;
+                if (c[p[i]] != c[p[i - 1]] || c[a] != c[b]) classes++;
+                cn[p[i]] = classes - 1;
+            }
+            int[] tmp = c;
+            c = cn;
+            cn = tmp;
+        }
+        return p;
+    }
+
+    //replace each byte by its position in list of recently used bytes, so repeated contexts turn into runs of zeros
+    static void moveToFront(byte[] data) {
+        byte[] order = new byte[256];
+        for (int i = 0; i < 256; i++) order[i] = (byte) i;
+        for (int i = 0; i < data.length; i++) {
+            byte b = data[i];
+            int j = 0;
+            byte moved = order[0];
+            while (moved != b) {
+                byte next = order[++j];
+                order[j] = moved;
+                moved = next;
+            }
+            order[0] = b;
+            data[i] = (byte) j;
+        }
+    }
+
+    static void inverseMoveToFront(byte[] data) {
+        byte[] order = new byte[256];
+        for (int i = 0; i < 256; i++) order[i] = (byte) i;
+        for (int i = 0; i < data.length; i++) {
+            int j = data[i] & 0xFF;
+            byte b = order[j];
+            System.arraycopy(order, 0, order, 1, j);
+            order[0] = b;
+            data[i] = b;
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package algorithms;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+public class BlockCompression implements Compression {
+    private static final int BLOCK_INDEX_ENTRY = 8; //raw length and compressed length of block
+
+    private final Compression codec; //compression of each block
+    private final int blockSize; //number of input bytes in one block
+    private final ForkJoinPool pool;
+
+    public BlockCompression(Compression codec) {
+        this(codec, BlockStreams.BLOCK_SIZE, ForkJoinPool.commonPool());
+    }
+
+    public BlockCompression(Compression codec, int blockSize, ForkJoinPool pool) {
+        if (blockSize <= 0) throw new IllegalArgumentException("blockSize must be positive");
+        this.codec = codec;
+        this.blockSize = blockSize;
+        this.pool = pool;
+    }
+
+    //compressed: [block count][raw length, compressed length of each block][compressed blocks]
+    @Override
+    public byte[] compress(byte[] byteArray) {
+        int blocks = (byteArray.length + blockSize - 1) / blockSize;
+        List<ForkJoinTask<byte[]>> tasks = new ArrayList<>(blocks);
+        for (int i = 0; i < blocks; i++) {
+            int from = i * blockSize, to = Math.min(byteArray.length, from + blockSize);
+            tasks.add(pool.submit(() -> codec.compress(Arrays.copyOfRange(byteArray, from, to))));
+        }
+
+        byte[][] compressed = new byte[blocks][];
+        long size = 4 + (long) blocks * BLOCK_INDEX_ENTRY;
+        for (int i = 0; i < blocks; i++) {
+            compressed[i] = tasks.get(i).join();
+            size += compressed[i].length;
+        }
+
+        byte[] result = new byte[Math.toIntExact(size)];
+        writeInt(result, 0, blocks);
+        int pos = 4 + blocks * BLOCK_INDEX_ENTRY;
+        for (int i = 0; i < blocks; i++) {
+            writeInt(result, 4 + i * BLOCK_INDEX_ENTRY, Math.min(blockSize, byteArray.length - i * blockSize));
+            writeInt(result, 8 + i * BLOCK_INDEX_ENTRY, compressed[i].length);
+            System.arraycopy(compressed[i], 0, result, pos, compressed[i].length);
+            pos += compressed[i].length;
+        }
+        return result;
+    }
+
+    //block index gives position of each block in both arrays, so all blocks are decompressed at once
+    @Override
+    public byte[] decompress(byte[] byteArray) {
+        int blocks = readInt(byteArray, 0);
+        if (blocks < 0 || blocks > (byteArray.length - 4) / BLOCK_INDEX_ENTRY)
+            throw new IllegalArgumentException("Invalid block count");
+        long rawSize = 0;
+        long pos = 4 + (long) blocks * BLOCK_INDEX_ENTRY;
+        for (int i = 0; i < blocks; i++) {
+            int rawLength = readInt(byteArray, 4 + i * BLOCK_INDEX_ENTRY);
+            int compressedLength = readInt(byteArray, 8 + i * BLOCK_INDEX_ENTRY);
+            if (rawLength < 0 || compressedLength < 0) throw new IllegalArgumentException("Invalid block index");
+            rawSize += rawLength;
+            pos += compressedLength;
+        }
+        if (pos > byteArray.length) throw new IllegalArgumentException("Invalid block index");
+
+        byte[] result = new byte[Math.toIntExact(rawSize)];
+        List<ForkJoinTask<?>> tasks = new ArrayList<>(blocks);
+        int from = 4 + blocks * BLOCK_INDEX_ENTRY, to = 0;
+        for (int i = 0; i < blocks; i++) {
+            int rawLength = readInt(byteArray, 4 + i * BLOCK_INDEX_ENTRY);
+            int compressedLength = readInt(byteArray, 8 + i * BLOCK_INDEX_ENTRY);
+            int blockFrom = from, blockTo = to;
+            tasks.add(pool.submit(() -> {
+                byte[] block = codec.decompress(Arrays.copyOfRange(byteArray, blockFrom, blockFrom + compressedLength));
+                if (block.length != rawLength) throw new IllegalArgumentException("Block length does not match index");
+                System.arraycopy(block, 0, result, blockTo, rawLength);
+            }));
+            from += compressedLength;
+            to += rawLength;
+        }
+        for (ForkJoinTask<?> task : tasks) task.join();
+        return result;
+    }
+
+    private static void writeInt(byte[] out, int pos, int value) {
+        out[pos] = (byte) (value >>> 24);
+        out[pos + 1] = (byte) (value >>> 16);
+        out[pos + 2] = (byte) (value >>> 8);
+        out[pos + 3] = (byte) value;
+    }
+
+    private static int readInt(byte[] in, int pos) {
+        return (in[pos] & 0xFF) << 24 | (in[pos + 1] & 0xFF) << 16 | (in[pos + 2] & 0xFF) << 8 | in[pos + 3] & 0xFF;
+    }
+}
@@ -0,0 +1,80 @@
+package algorithms;
+
+//Writes bits of inner encoding row by row into depth x rowBits matrix and sends it column by column,
+//so a burst of up to depth bits hits each row (codeword) at most once
+public class BlockInterleaver implements Encoding {
+    private final Encoding inner;
+    private final int rowBits; //should be codeword length of inner encoding
+    private final int depth; //number of rows, the longest burst which is spread
+    private final int[] table; //output bit -> input bit of full block
+
+    public BlockInterleaver(Encoding inner, int rowBits, int depth) {
+        if (rowBits <= 0 || depth <= 0 || (long) rowBits * depth > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("Invalid interleaver size");
+        if (rowBits * depth % 8 != 0) throw new IllegalArgumentException("rowBits * depth must be a multiple of 8");
+        this.inner = inner;
+        this.rowBits = rowBits;
+        this.depth = depth;
+        this.table = buildTable(rowBits * depth);
+    }
+
+    //column by column order of matrix holding size bits, last block may be shorter and have partial last row
+    private int[] buildTable(int size) {
+        int rows = (size + rowBits - 1) / rowBits;
+        int[] order = new int[size];
+        int k = 0;
+        for (int col = 0; col < rowBits; col++)
+            for (int row = 0; row < rows; row++) {
+                int bit = row * rowBits + col;
+                if (bit < size) order[k++] = bit;
+            }
+        return order;
+    }
+
+    @Override
+    public byte[] encode(byte[] byteArray) {
+        return permute(inner.encode(byteArray), false);
+    }
+
+    @Override
+    public byte[] decode(byte[] byteArray) {
+        return inner.decode(permute(byteArray, true));
+    }
+
+    //move every bit through table of its block, blocks start at byte boundary so positions stay within int
+    private byte[] permute(byte[] data, boolean inverse) {
+        byte[] result = new byte[data.length];
+        int blockBytes = table.length / 8;
+        for (int base = 0; base < data.length; base += blockBytes) {
+            int size = 8 * Math.min(blockBytes, data.length - base);
+            int[] order = size == table.length ? table : buildTable(size);
+            if (!inverse) {
+                //gather: output byte is collected from 8 scattered input bits
+                for (int k = 0; k < size; k += 8) {
+                    int value = 0;
+                    for (int j = 0; j < 8; j++) {
+                        int from = order[k + j];
+                        value = value << 1 | data[base + (from >>> 3)] >>> (7 - (from & 7)) & 1;
+                    }
+                    result[base + (k >>> 3)] = (byte) value;
+                }
+            } else {
+                //scatter: each input byte is spread to 8 output bits
+                for (int k = 0; k < size; k += 8) {
+                    int value = data[base + (k >>> 3)];
+                    for (int j = 0; j < 8; j++)
+                        if ((value & 0x80 >>> j) != 0) {
+                            int to = order[k + j];
+                            result[base + (to >>> 3)] |= 0x80 >>> (to & 7);
+                        }
+                }
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public long corrections() {
+        return inner.corrections();
+    }
+}
@@ -0,0 +1,74 @@
+package algorithms;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.function.UnaryOperator;
+
+//Helpers for processing streams as sequence of independent blocks, so only one block is kept in memory
+final class BlockStreams {
+    static final int BLOCK_SIZE = 1 << 20; //default number of input bytes in one block
+    private static final int MAX_FRAME_SIZE = 64 * BLOCK_SIZE; //longer frame can only be a damaged length
+
+    private BlockStreams() {
+    }
+
+    //read block.length bytes, fewer only at the end of stream
+    static int readBlock(InputStream in, byte[] block) throws IOException {
+        int n = 0;
+        while (n < block.length) {
+            int read = in.read(block, n, block.length - n);
+            if (read < 0) break;
+            n += read;
+        }
+        return n;
+    }
+
+    //whole block is passed as is, last partial block is copied
+    static byte[] trim(byte[] block, int n) {
+        return n == block.length ? block : Arrays.copyOf(block, n);
+    }
+
+    //transform each block of in and write it to out without framing, used when transform works on fixed size units
+    static void transform(InputStream in, OutputStream out, int blockSize, UnaryOperator<byte[]> transform) throws IOException {
+        byte[] block = new byte[blockSize];
+        int n;
+        while ((n = readBlock(in, block)) > 0) out.write(transform.apply(trim(block, n)));
+        out.flush();
+    }
+
+    //transform each block of in and write it to out as [4-byte length][transformed block]
+    static void writeFramed(InputStream in, OutputStream out, int blockSize, UnaryOperator<byte[]> transform) throws IOException {
+        DataOutputStream dataOut = new DataOutputStream(out);
+        byte[] block = new byte[blockSize];
+        int n;
+        while ((n = readBlock(in, block)) > 0) {
+            byte[] frame = transform.apply(trim(block, n));
+            dataOut.writeInt(frame.length);
+            dataOut.write(frame);
+        }
+        dataOut.flush();
+    }
+
+    //read frames written by writeFramed until end of stream, transform each of them and write result to out
+    static void readFramed(InputStream in, OutputStream out, UnaryOperator<byte[]> transform) throws IOException {
+        DataInputStream dataIn = new DataInputStream(in);
+        while (true) {
+            int length;
+            try {
+                length = dataIn.readInt();
+            } catch (EOFException e) {
+                break;
+            }
+            if (length < 0 || length > MAX_FRAME_SIZE) throw new IOException("Invalid frame length: " + length);
+            byte[] frame = new byte[length];
+            dataIn.readFully(frame);
+            out.write(transform.apply(frame));
+        }
+        out.flush();
+    }
+}
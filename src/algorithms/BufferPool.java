@@ -0,0 +1,60 @@
+package algorithms;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+//Heap buffers reused between payloads, kept in power of two size classes so any request takes at most twice its size
+public final class BufferPool {
+    private static final int MIN_CLASS = 10; //smaller buffers are not worth pooling, they come from 1 KB class
+    private static final int MAX_CLASS = 26; //larger buffers are allocated and dropped, so pool never holds more than a few of 64 MB
+    private static final int BUFFERS_PER_CLASS = 4;
+    private static final BufferPool SHARED = new BufferPool();
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private final ConcurrentLinkedQueue<ByteBuffer>[] free = new ConcurrentLinkedQueue[MAX_CLASS + 1];
+    private final AtomicIntegerArray freeCount = new AtomicIntegerArray(MAX_CLASS + 1);
+
+    public BufferPool() {
+        for (int c = MIN_CLASS; c <= MAX_CLASS; c++) free[c] = new ConcurrentLinkedQueue<>();
+    }
+
+    public static BufferPool shared() {
+        return SHARED;
+    }
+
+    private static int sizeClass(int capacity) {
+        return Math.max(MIN_CLASS, 32 - Integer.numberOfLeadingZeros(Math.max(1, capacity) - 1));
+    }
+
+    //buffer with at least length bytes, position 0 and limit length; contents are not cleared
+    public ByteBuffer acquire(int length) {
+        int c = sizeClass(length);
+        ByteBuffer buffer = null;
+        if (c <= MAX_CLASS) {
+            buffer = free[c].poll();
+            if (buffer != null) freeCount.decrementAndGet(c);
+        }
+        if (buffer == null) buffer = ByteBuffer.allocate(c <= MAX_CLASS ? 1 << c : length);
+        buffer.clear().limit(length);
+        return buffer;
+    }
+
+    //give buffer back, only buffers of exact class size are kept, so wrapped arrays are simply dropped
+    public void release(ByteBuffer buffer) {
+        if (buffer == null || !buffer.hasArray() || buffer.isReadOnly()) return;
+        int capacity = buffer.capacity(), c = sizeClass(capacity);
+        if (c > MAX_CLASS || capacity != 1 << c || buffer.arrayOffset() != 0) return;
+        if (freeCount.incrementAndGet(c) > BUFFERS_PER_CLASS) freeCount.decrementAndGet(c);
+        else free[c].offer(buffer);
+    }
+
+    //bytes between position and limit, the backing array itself when buffer covers all of it
+    public static byte[] toArray(ByteBuffer buffer) {
+        if (buffer.hasArray() && buffer.arrayOffset() == 0 && buffer.position() == 0 && buffer.limit() == buffer.array().length)
+            return buffer.array();
+        byte[] result = new byte[buffer.remaining()];
+        buffer.duplicate().get(result);
+        return result;
+    }
+}
@@ -0,0 +1,77 @@
+package algorithms;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
+//Codecs one side of connection can decode, exchanged at connect time so both sides only send what the other understands
+public final class Capabilities {
+    private final Set<CompressionType> compressions;
+    private final Set<EncodingType> encodings;
+
+    public Capabilities(Set<CompressionType> compressions, Set<EncodingType> encodings) {
+        this.compressions = Collections.unmodifiableSet(EnumSet.copyOf(compressions));
+        this.encodings = Collections.unmodifiableSet(EnumSet.copyOf(encodings));
+    }
+
+    //everything this build knows
+    public static Capabilities local() {
+        return new Capabilities(EnumSet.allOf(CompressionType.class), EnumSet.allOf(EncodingType.class));
+    }
+
+    //what every peer supports, used until handshake is done and for peers which send no capabilities
+    public static Capabilities baseline() {
+        return new Capabilities(EnumSet.of(CompressionType.STORED), EnumSet.of(EncodingType.NONE, EncodingType.REPETITION_5));
+    }
+
+    public Set<CompressionType> getCompressions() {
+        return compressions;
+    }
+
+    public Set<EncodingType> getEncodings() {
+        return encodings;
+    }
+
+    //codecs both sides support, baseline is always kept
+    public Capabilities intersect(Capabilities other) {
+        Set<CompressionType> c = EnumSet.copyOf(compressions);
+        c.retainAll(other.compressions);
+        c.addAll(baseline().compressions);
+        Set<EncodingType> e = EnumSet.copyOf(encodings);
+        e.retainAll(other.encodings);
+        e.addAll(baseline().encodings);
+        return new Capabilities(c, e);
+    }
+
+    //[compression count][compression ids][encoding count][encoding ids]
+    public byte[] toBytes() {
+        byte[] result = new byte[2 + compressions.size() + encodings.size()];
+        int pos = 0;
+        result[pos++] = (byte) compressions.size();
+        for (CompressionType type : compressions) result[pos++] = (byte) type.getId();
+        result[pos++] = (byte) encodings.size();
+        for (EncodingType type : encodings) result[pos++] = (byte) type.getId();
+        return result;
+    }
+
+    //ids this build does not know come from newer peer and are skipped
+    public static Capabilities fromBytes(byte[] bytes) {
+        Set<CompressionType> c = EnumSet.noneOf(CompressionType.class);
+        Set<EncodingType> e = EnumSet.noneOf(EncodingType.class);
+        int pos = 0;
+        if (bytes.length < 1) throw new IllegalArgumentException("Invalid capabilities");
+        int count = bytes[pos++] & 0xFF;
+        if (bytes.length < pos + count + 1) throw new IllegalArgumentException("Invalid capabilities");
+        for (int i = 0; i < count; i++) {
+            int id = bytes[pos++] & 0xFF;
+            for (CompressionType type : CompressionType.values()) if (type.getId() == id) c.add(type);
+        }
+        count = bytes[pos++] & 0xFF;
+        if (bytes.length < pos + count) throw new IllegalArgumentException("Invalid capabilities");
+        for (int i = 0; i < count; i++) {
+            int id = bytes[pos++] & 0xFF;
+            for (EncodingType type : EncodingType.values()) if (type.getId() == id) e.add(type);
+        }
+        return new Capabilities(c, e);
+    }
+}
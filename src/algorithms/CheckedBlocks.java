@@ -0,0 +1,140 @@
+package algorithms;
+
+import java.util.Arrays;
+import java.util.zip.CRC32C;
+
+//Payload cut into blocks, each followed by CRC32C of its index and data: damaged blocks are only found, not corrected,
+//so receiver asks for them again instead of every block carrying redundancy
+public class CheckedBlocks implements Encoding {
+    static final int DEFAULT_BLOCK_SIZE = 1024;
+    static final int CRC_BYTES = 4;
+    private static final int LENGTH_BYTES = 4; //original length is sent in front of data, checked by the first block
+
+    private final int blockSize;
+    private long corrections; //damaged blocks found, each of them has at least one damaged bit
+
+    public CheckedBlocks() {
+        this(DEFAULT_BLOCK_SIZE);
+    }
+
+    //the first block has to hold whole length
+    public CheckedBlocks(int blockSize) {
+        if (blockSize < LENGTH_BYTES) throw new IllegalArgumentException("blockSize must be at least " + LENGTH_BYTES);
+        this.blockSize = blockSize;
+    }
+
+    //checksum includes block index, so block put at wrong position is found too
+    private static int checksum(byte[] data, int pos, int length, int index) {
+        CRC32C crc = new CRC32C();
+        crc.update(index >>> 24);
+        crc.update(index >>> 16);
+        crc.update(index >>> 8);
+        crc.update(index);
+        crc.update(data, pos, length);
+        return (int) crc.getValue();
+    }
+
+    public int blockCount(byte[] encoded) {
+        return (encoded.length + blockSize + CRC_BYTES - 1) / (blockSize + CRC_BYTES);
+    }
+
+    private int start(int index) {
+        return index * (blockSize + CRC_BYTES);
+    }
+
+    //data bytes of block, the last block may be shorter
+    private int dataLength(byte[] encoded, int index) {
+        return Math.min(blockSize, encoded.length - start(index) - CRC_BYTES);
+    }
+
+    private boolean intact(byte[] encoded, int index) {
+        int pos = start(index), length = dataLength(encoded, index);
+        return length >= 0 && readInt(encoded, pos + length) == checksum(encoded, pos, length, index);
+    }
+
+    //encoded: [length][input] cut into blocks of blockSize bytes, each followed by its checksum
+    @Override
+    public byte[] encode(byte[] byteArray) {
+        long data = (long) LENGTH_BYTES + byteArray.length;
+        int blocks = Math.toIntExact((data + blockSize - 1) / blockSize);
+        byte[] result = new byte[Math.toIntExact(data + (long) blocks * CRC_BYTES)];
+        writeInt(result, 0, byteArray.length);
+        int copied = 0;
+        for (int i = 0; i < blocks; i++) {
+            int pos = start(i), from = i == 0 ? LENGTH_BYTES : 0;
+            int count = Math.min(blockSize - from, byteArray.length - copied);
+            System.arraycopy(byteArray, copied, result, pos + from, count);
+            copied += count;
+            writeInt(result, pos + from + count, checksum(result, pos, from + count, i));
+        }
+        return result;
+    }
+
+    //damaged blocks are not tolerated, caller has to get them again before decoding
+    @Override
+    public byte[] decode(byte[] byteArray) {
+        int[] damaged = damagedBlocks(byteArray);
+        if (damaged.length > 0) throw new IllegalArgumentException(damaged.length + " damaged blocks");
+        int blocks = blockCount(byteArray);
+        byte[] data = new byte[byteArray.length - blocks * CRC_BYTES];
+        for (int i = 0; i < blocks; i++)
+            System.arraycopy(byteArray, start(i), data, i * blockSize, dataLength(byteArray, i));
+        int length = readInt(data, 0);
+        if (length < 0 || length > data.length - LENGTH_BYTES) throw new IllegalArgumentException("Invalid block length");
+        return Arrays.copyOfRange(data, LENGTH_BYTES, LENGTH_BYTES + length);
+    }
+
+    //indices of blocks whose checksum does not match, each of them counts as a correction
+    public int[] damagedBlocks(byte[] encoded) {
+        if (encoded.length < LENGTH_BYTES + CRC_BYTES) throw new IllegalArgumentException("Checked input is too short");
+        int blocks = blockCount(encoded);
+        int[] damaged = new int[blocks];
+        int count = 0;
+        for (int i = 0; i < blocks; i++)
+            if (!intact(encoded, i)) damaged[count++] = i;
+        corrections += count;
+        return Arrays.copyOf(damaged, count);
+    }
+
+    //blocks with given indices together with their checksums, to be sent again
+    public byte[] copyBlocks(byte[] encoded, int[] indices) {
+        int size = 0;
+        for (int index : indices) size += dataLength(encoded, index) + CRC_BYTES;
+        byte[] result = new byte[size];
+        int pos = 0;
+        for (int index : indices) {
+            int length = dataLength(encoded, index) + CRC_BYTES;
+            System.arraycopy(encoded, start(index), result, pos, length);
+            pos += length;
+        }
+        return result;
+    }
+
+    //put blocks copied by copyBlocks back to their places, they are checked again by damagedBlocks
+    public void patch(byte[] encoded, int[] indices, byte[] blocks) {
+        int pos = 0;
+        for (int index : indices) {
+            if (index < 0 || index >= blockCount(encoded)) throw new IllegalArgumentException("Invalid block index");
+            int length = dataLength(encoded, index) + CRC_BYTES;
+            if (pos + length > blocks.length) throw new IllegalArgumentException("Resent blocks are too short");
+            System.arraycopy(blocks, pos, encoded, start(index), length);
+            pos += length;
+        }
+    }
+
+    @Override
+    public long corrections() {
+        return corrections;
+    }
+
+    private static void writeInt(byte[] out, int pos, int value) {
+        out[pos] = (byte) (value >>> 24);
+        out[pos + 1] = (byte) (value >>> 16);
+        out[pos + 2] = (byte) (value >>> 8);
+        out[pos + 3] = (byte) value;
+    }
+
+    private static int readInt(byte[] in, int pos) {
+        return (in[pos] & 0xFF) << 24 | (in[pos + 1] & 0xFF) << 16 | (in[pos + 2] & 0xFF) << 8 | in[pos + 3] & 0xFF;
+    }
+}
@@ -0,0 +1,61 @@
+package algorithms;
+
+//Codec chain of payload in the order it was applied on send: one compression, then encodings;
+//parameters of each codec are part of its type id, so header is one byte per stage
+public final class CodecHeader {
+    private static final int ENCODING = 0x80; //stage is encoding, otherwise compression
+    private static final int BLOCKS = 0x40; //compression ran over parallel blocks of BlockCompression
+    private static final int ID_MASK = 0x3F;
+
+    private final CompressionType compression;
+    private final boolean blocks;
+    private final EncodingType[] encodings;
+
+    public CodecHeader(CompressionType compression, boolean blocks, EncodingType... encodings) {
+        this.compression = compression;
+        this.blocks = blocks;
+        this.encodings = encodings.clone();
+    }
+
+    public CompressionType getCompression() {
+        return compression;
+    }
+
+    public EncodingType[] getEncodings() {
+        return encodings.clone();
+    }
+
+    public boolean hasEncoding(EncodingType type) {
+        for (EncodingType encoding : encodings) if (encoding == type) return true;
+        return false;
+    }
+
+    //fresh codecs of the chain, decoders keep their correction counts
+    public CodecPipeline createPipeline() {
+        Compression c = blocks && compression != CompressionType.STORED ? new BlockCompression(compression.create()) : compression.create();
+        Encoding[] e = new Encoding[encodings.length];
+        for (int i = 0; i < e.length; i++) e[i] = encodings[i].create();
+        return new CodecPipeline(c, e);
+    }
+
+    //[stage count][compression id | BLOCKS][encoding id | ENCODING]...
+    public byte[] toBytes() {
+        byte[] result = new byte[2 + encodings.length];
+        result[0] = (byte) (1 + encodings.length);
+        result[1] = (byte) (compression.getId() | (blocks ? BLOCKS : 0));
+        for (int i = 0; i < encodings.length; i++) result[2 + i] = (byte) (encodings[i].getId() | ENCODING);
+        return result;
+    }
+
+    public static CodecHeader fromBytes(byte[] bytes) {
+        if (bytes.length < 2 || (bytes[0] & 0xFF) != bytes.length - 1 || (bytes[1] & ENCODING) != 0)
+            throw new IllegalArgumentException("Invalid codec header");
+        CompressionType compression = CompressionType.fromId(bytes[1] & ID_MASK);
+        EncodingType[] encodings = new EncodingType[bytes.length - 2];
+        for (int i = 0; i < encodings.length; i++) {
+            if ((bytes[2 + i] & ENCODING) == 0) throw new IllegalArgumentException("Invalid codec header");
+            encodings[i] = EncodingType.fromId(bytes[2 + i] & ID_MASK);
+        }
+        return new CodecHeader(compression, (bytes[1] & BLOCKS) != 0, encodings);
+    }
+}
@@ -0,0 +1,70 @@
+package algorithms;
+
+import java.nio.ByteBuffer;
+
+//Compression followed by any number of encodings, applied in this order on send and backwards on receive;
+//stages hand buffers to each other and every intermediate buffer goes back to pool once the next stage is done with it
+public class CodecPipeline {
+    private final BufferPool pool;
+    private final Compression compression;
+    private final Encoding[] encodings;
+
+    public CodecPipeline(Compression compression, Encoding... encodings) {
+        this(BufferPool.shared(), compression, encodings);
+    }
+
+    public CodecPipeline(BufferPool pool, Compression compression, Encoding... encodings) {
+        this.pool = pool;
+        this.compression = compression;
+        this.encodings = encodings.clone();
+    }
+
+    public byte[] send(byte[] payload) {
+        ByteBuffer input = ByteBuffer.wrap(payload);
+        ByteBuffer buffer = next(input, input, compression.compress(input, pool));
+        for (Encoding encoding : encodings) buffer = next(input, buffer, encoding.encode(buffer, pool));
+        return finish(input, buffer);
+    }
+
+    //data may be overwritten, decoders fix damaged bytes in place
+    public byte[] receive(byte[] data) {
+        ByteBuffer input = ByteBuffer.wrap(data);
+        ByteBuffer buffer = input;
+        for (int i = encodings.length - 1; i >= 0; i--) buffer = next(input, buffer, encodings[i].decode(buffer, pool));
+        buffer = next(input, buffer, compression.decompress(buffer, pool));
+        return finish(input, buffer);
+    }
+
+    //receive in two steps, so decoding and decompression of different payloads can run on different threads
+    public byte[] decode(byte[] data) {
+        ByteBuffer input = ByteBuffer.wrap(data);
+        ByteBuffer buffer = input;
+        for (int i = encodings.length - 1; i >= 0; i--) buffer = next(input, buffer, encodings[i].decode(buffer, pool));
+        return finish(input, buffer);
+    }
+
+    public byte[] decompress(byte[] decoded) {
+        ByteBuffer input = ByteBuffer.wrap(decoded);
+        return finish(input, next(input, input, compression.decompress(input, pool)));
+    }
+
+    //damaged bits found by decoders of this pipeline
+    public long corrections() {
+        long corrections = 0;
+        for (Encoding encoding : encodings) corrections += encoding.corrections();
+        return corrections;
+    }
+
+    //previous buffer is released unless stage passed it on or it belongs to caller
+    private ByteBuffer next(ByteBuffer input, ByteBuffer previous, ByteBuffer result) {
+        if (result != previous && previous != input) pool.release(previous);
+        return result;
+    }
+
+    //result has to outlive pipeline, so it is copied out of pooled buffer unless it already is a whole array
+    private byte[] finish(ByteBuffer input, ByteBuffer buffer) {
+        byte[] result = BufferPool.toArray(buffer);
+        if (buffer != input && result != buffer.array()) pool.release(buffer);
+        return result;
+    }
+}
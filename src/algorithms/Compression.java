@@ -1,7 +1,31 @@
 package algorithms;
 
-interface Compression {
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+public interface Compression {
     byte[] compress(byte[] byteArray);
 
     byte[] decompress(byte[] byteArray);
+
+    //compress bytes between position and limit of input, same buffer rules as Encoding.encode(ByteBuffer, BufferPool)
+    default ByteBuffer compress(ByteBuffer input, BufferPool pool) {
+        return ByteBuffer.wrap(compress(BufferPool.toArray(input)));
+    }
+
+    default ByteBuffer decompress(ByteBuffer input, BufferPool pool) {
+        return ByteBuffer.wrap(decompress(BufferPool.toArray(input)));
+    }
+
+    //compress stream block by block until its end, memory use does not depend on stream length
+    default void compress(InputStream in, OutputStream out) throws IOException {
+        BlockStreams.writeFramed(in, out, BlockStreams.BLOCK_SIZE, this::compress);
+    }
+
+    //decompress stream written by compress(InputStream, OutputStream)
+    default void decompress(InputStream in, OutputStream out) throws IOException {
+        BlockStreams.readFramed(in, out, this::decompress);
+    }
 }
@@ -0,0 +1,120 @@
+package algorithms;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+//Picks compression for payload from statistics of a few samples of it, instead of trusting file extension
+public class CompressionSelector {
+    private static final int MIN_LENGTH = 64; //smaller payloads do not pay off any header
+    private static final int SAMPLES = 16; //number of windows spread over payload
+    private static final int SAMPLE_SIZE = 4096;
+    private static final int HASH_BITS = 14; //size of table of last seen 4-byte sequences
+    private static final double RLE_RUN_RATIO = 0.4; //part of bytes equal to previous one, enough to try RLE on samples
+    private static final double MATCH_RATIO = 0.5; //part of 4-byte sequences which occurred before, enough to try dictionary codecs on samples
+    private static final double MAX_BITS_PER_BYTE = 7.0; //worse compression saves too little to be worth it
+    private static final double RANS_MAX_PROBABILITY = 0.5; //Huffman loses up to this probability + 0.086 bits per byte against entropy
+    private static final int SMALL_TEXT = 1024; //shorter text is always coded with static model, adaptive codes are not even built
+
+    private CompressionSelector() {
+    }
+
+    public static CompressionType select(byte[] data) {
+        return select(data, EnumSet.allOf(CompressionType.class));
+    }
+
+    //only allowed compressions are considered, STORED is always possible
+    public static CompressionType select(byte[] data, Set<CompressionType> allowed) {
+        if (data.length < MIN_LENGTH) return CompressionType.STORED;
+        int[] freq = new int[256];
+        int[] grams = new int[1 << HASH_BITS]; //last 4-byte sequence seen in each slot
+        boolean[] seen = new boolean[1 << HASH_BITS];
+        int sampled = 0, repeats = 0, matches = 0;
+        byte[] sample = new byte[Math.min(data.length, SAMPLES * SAMPLE_SIZE)];
+
+        //whole payload is one window if it is small, otherwise windows are evenly spread
+        int windows = data.length <= SAMPLES * SAMPLE_SIZE ? 1 : SAMPLES;
+        int windowSize = windows == 1 ? data.length : SAMPLE_SIZE;
+        long step = windows == 1 ? 0 : (data.length - windowSize) / (windows - 1);
+        for (int w = 0; w < windows; w++) {
+            int from = (int) (w * step), to = from + windowSize;
+            int gram = 0;
+            for (int i = from; i < to; i++) {
+                int b = data[i] & 0xFF;
+                freq[b]++;
+                if (i > from && data[i - 1] == data[i]) repeats++;
+                gram = gram << 8 | b;
+                if (i - from >= 3) {
+                    int slot = (gram * 0x9E3779B1) >>> (32 - HASH_BITS);
+                    if (seen[slot] && grams[slot] == gram) matches++;
+                    grams[slot] = gram;
+                    seen[slot] = true;
+                }
+            }
+            System.arraycopy(data, from, sample, sampled, windowSize);
+            sampled += windowSize;
+        }
+
+        //entropy coders are estimated from entropy, run and dictionary codecs are tried on samples only if statistics suggest they may win
+        double entropy = entropy(freq, sampled);
+        int max = 0;
+        for (int f : freq) max = Math.max(max, f);
+        CompressionType best = (double) max / sampled > RANS_MAX_PROBABILITY && allowed.contains(CompressionType.RANS)
+                || !allowed.contains(CompressionType.HUFFMAN) ? CompressionType.RANS : CompressionType.HUFFMAN;
+        double bestSize = allowed.contains(best) ? entropy * sampled / 8 : Double.POSITIVE_INFINITY;
+        if ((double) repeats / sampled >= RLE_RUN_RATIO && allowed.contains(CompressionType.RLE)) {
+            int rle = new RLE(true).compress(sample).length;
+            if (rle < bestSize) {
+                best = CompressionType.RLE;
+                bestSize = rle;
+            }
+        }
+        //repeated sequences may also come from small alphabet, which entropy coders handle better
+        if ((double) matches / sampled >= MATCH_RATIO)
+            for (CompressionType type : new CompressionType[]{CompressionType.LZSS, CompressionType.LZ78, CompressionType.BWT}) {
+                if (!allowed.contains(type)) continue;
+                int size = type.create().compress(sample).length;
+                if (size < bestSize) {
+                    best = type;
+                    bestSize = size;
+                }
+            }
+        return bestSize <= MAX_BITS_PER_BYTE * sampled / 8 ? best : CompressionType.STORED;
+    }
+
+    //text is coded with Huffman, static model is taken unless adaptive codes with their header are smaller
+    public static CompressionType selectText(byte[] text) {
+        return selectText(text, EnumSet.allOf(CompressionType.class));
+    }
+
+    public static CompressionType selectText(byte[] text, Set<CompressionType> allowed) {
+        CompressionType best = CompressionType.STORED;
+        long bestBits = 8L * text.length;
+        for (CompressionType type : new CompressionType[]{CompressionType.HUFFMAN_ENGLISH_CHAT, CompressionType.HUFFMAN_JSON}) {
+            if (!allowed.contains(type)) continue;
+            long bits = (type == CompressionType.HUFFMAN_JSON ? HuffmanModel.JSON : HuffmanModel.ENGLISH_CHAT).encodedBits(text);
+            if (bits < bestBits) {
+                best = type;
+                bestBits = bits;
+            }
+        }
+        //without static models text is coded adaptively whatever its length
+        if ((text.length >= SMALL_TEXT || best == CompressionType.STORED) && allowed.contains(CompressionType.HUFFMAN)) {
+            int[] freq = Huffman.countFrequencies(text);
+            int[] lengths = Huffman.buildCodeLengths(freq);
+            if (8L * (4 + Huffman.headerSize(lengths)) + Huffman.encodedBits(freq, lengths) < bestBits)
+                return CompressionType.HUFFMAN;
+        }
+        return best;
+    }
+
+    //order-0 entropy in bits per byte
+    static double entropy(int[] freq, int total) {
+        double entropy = 0;
+        for (int f : freq)
+            if (f > 0) {
+                double p = (double) f / total;
+                entropy -= p * Math.log(p);
+            }
+        return entropy / Math.log(2);
+    }
+}
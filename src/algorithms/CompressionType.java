@@ -0,0 +1,38 @@
+package algorithms;
+
+import java.util.function.Supplier;
+
+//Compression which was applied to payload, id is what goes over the wire
+public enum CompressionType {
+    STORED(0, Stored::new),
+    HUFFMAN(1, Huffman::new),
+    LZ78(2, algorithms.LZ78::new),
+    RLE(3, () -> new algorithms.RLE(true)),
+    LZSS(4, algorithms.LZSS::new),
+    HUFFMAN_ENGLISH_CHAT(5, () -> new Huffman(HuffmanModel.ENGLISH_CHAT)),
+    HUFFMAN_JSON(6, () -> new Huffman(HuffmanModel.JSON)),
+    RANS(7, algorithms.RANS::new),
+    BWT(8, algorithms.BWT::new);
+
+    private final int id;
+    private final Supplier<Compression> factory;
+
+    CompressionType(int id, Supplier<Compression> factory) {
+        this.id = id;
+        this.factory = factory;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public Compression create() {
+        return factory.get();
+    }
+
+    public static CompressionType fromId(int id) {
+        for (CompressionType type : values())
+            if (type.id == id) return type;
+        throw new IllegalArgumentException("Unknown compression id: " + id);
+    }
+}
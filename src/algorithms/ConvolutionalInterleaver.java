@@ -0,0 +1,54 @@
+package algorithms;
+
+//Bit i of inner encoding goes through branch i % branches which delays it by (i % branches) * delay * branches bits,
+//so neighbouring bits on the channel come from bits of inner encoding that are at least about delay * branches apart
+public class ConvolutionalInterleaver implements Encoding {
+    private final Encoding inner;
+    private final int branches;
+    private final int step; //delay * branches, extra delay of every next branch
+    private final int tailBytes; //bytes added to flush the longest branch
+
+    public ConvolutionalInterleaver(Encoding inner, int branches, int delay) {
+        if (branches <= 0 || delay <= 0 || (long) branches * branches * delay > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("Invalid interleaver size");
+        this.inner = inner;
+        this.branches = branches;
+        this.step = branches * delay;
+        this.tailBytes = ((branches - 1) * step + 7) / 8;
+    }
+
+    //position of bit i in output, no two bits share it because branch is i % branches
+    private long position(long i) {
+        return i + i % branches * step;
+    }
+
+    @Override
+    public byte[] encode(byte[] byteArray) {
+        byte[] data = inner.encode(byteArray);
+        byte[] result = new byte[data.length + tailBytes];
+        long bits = 8L * data.length;
+        for (long i = 0; i < bits; i++)
+            if ((data[(int) (i >>> 3)] & 0x80 >>> (i & 7)) != 0) {
+                long to = position(i);
+                result[(int) (to >>> 3)] |= 0x80 >>> (to & 7);
+            }
+        return result;
+    }
+
+    @Override
+    public byte[] decode(byte[] byteArray) {
+        if (byteArray.length < tailBytes) throw new IllegalArgumentException("Interleaved input is too short");
+        byte[] data = new byte[byteArray.length - tailBytes];
+        long bits = 8L * data.length;
+        for (long i = 0; i < bits; i++) {
+            long from = position(i);
+            if ((byteArray[(int) (from >>> 3)] & 0x80 >>> (from & 7)) != 0) data[(int) (i >>> 3)] |= 0x80 >>> (i & 7);
+        }
+        return inner.decode(data);
+    }
+
+    @Override
+    public long corrections() {
+        return inner.corrections();
+    }
+}
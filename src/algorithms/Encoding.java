@@ -1,7 +1,37 @@
 package algorithms;
 
-interface Encoding {
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+public interface Encoding {
     byte[] encode(byte[] byteArray);
 
     byte[] decode(byte[] byteArray);
+
+    //encode bytes between position and limit of input into buffer taken from pool; input may be overwritten or returned itself,
+    //so caller gives it back to pool only when another buffer is returned; codecs which do not override it go through arrays
+    default ByteBuffer encode(ByteBuffer input, BufferPool pool) {
+        return ByteBuffer.wrap(encode(BufferPool.toArray(input)));
+    }
+
+    default ByteBuffer decode(ByteBuffer input, BufferPool pool) {
+        return ByteBuffer.wrap(decode(BufferPool.toArray(input)));
+    }
+
+    //number of damaged bits found by decode calls of this instance, codes which cannot correct anything report 0
+    default long corrections() {
+        return 0;
+    }
+
+    //encode stream block by block until its end, memory use does not depend on stream length
+    default void encode(InputStream in, OutputStream out) throws IOException {
+        BlockStreams.writeFramed(in, out, BlockStreams.BLOCK_SIZE, this::encode);
+    }
+
+    //decode stream written by encode(InputStream, OutputStream)
+    default void decode(InputStream in, OutputStream out) throws IOException {
+        BlockStreams.readFramed(in, out, this::decode);
+    }
 }
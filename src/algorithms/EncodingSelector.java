@@ -0,0 +1,91 @@
+package algorithms;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+//Estimates bit error rate of one direction of connection from corrections reported by receiver,
+//and picks the cheapest encoding which keeps residual error rate under target
+public class EncodingSelector {
+    private static final double TARGET_RESIDUAL = 1e-9; //wrong data bits per data bit after decoding
+    private static final double PRIOR_RATE = 1e-2; //assumed before first report, so first payloads are protected heavily
+    private static final long PRIOR_BITS = 1 << 16; //weight of assumed rate, a few reports outweigh it
+    private static final long WINDOW_BITS = 1L << 24; //counts are halved above it, so estimate follows changes of channel
+    private static final double UNSEEN_ERRORS = 3; //added to counted errors, upper estimate when few or no errors were seen
+    private static final double MAX_OVERHEAD = 8; //sent bits per data bit, more than the heaviest code
+    private static final int REPORT_SIZE = 16;
+
+    private long bits = PRIOR_BITS;
+    private double errors = PRIOR_RATE * PRIOR_BITS;
+
+    //add report of receiver, bits is length of received encoded data and corrections what its decoder found
+    public synchronized void record(long receivedBits, long corrections) {
+        if (receivedBits <= 0) return;
+        bits += receivedBits;
+        errors += corrections;
+        while (bits > WINDOW_BITS) {
+            bits >>>= 1;
+            errors /= 2;
+        }
+    }
+
+    public void record(byte[] report) {
+        if (report.length != REPORT_SIZE) throw new IllegalArgumentException("Invalid report length");
+        record(readLong(report, 0), readLong(report, 8));
+    }
+
+    public synchronized double bitErrorRate() {
+        return Math.min(0.5, (errors + UNSEEN_ERRORS) / bits);
+    }
+
+    public EncodingType select() {
+        return select(EnumSet.allOf(EncodingType.class));
+    }
+
+    //only encodings supported by the other side are considered
+    public EncodingType select(Set<EncodingType> allowed) {
+        return select(bitErrorRate(), TARGET_RESIDUAL, allowed);
+    }
+
+    public static EncodingType select(double bitErrorRate, double targetResidual) {
+        return select(bitErrorRate, targetResidual, EnumSet.allOf(EncodingType.class));
+    }
+
+    //cheapest encoding meeting target, or the one with the lowest residual when none of them does;
+    //retransmission which would take more than MAX_OVERHEAD times payload is never picked
+    public static EncodingType select(double bitErrorRate, double targetResidual, Set<EncodingType> allowed) {
+        EncodingType best = null, strongest = null;
+        double bestOverhead = 0, strongestResidual = 0;
+        for (EncodingType type : allowed) {
+            double overhead = type.expectedOverhead(bitErrorRate);
+            if (overhead > MAX_OVERHEAD) continue;
+            double residual = type.residualErrorRate(bitErrorRate);
+            if (residual <= targetResidual && (best == null || overhead < bestOverhead)) {
+                best = type;
+                bestOverhead = overhead;
+            }
+            if (strongest == null || residual < strongestResidual) {
+                strongest = type;
+                strongestResidual = residual;
+            }
+        }
+        return best != null ? best : strongest != null ? strongest : EncodingType.NONE;
+    }
+
+    //report sent back by receiver: [received bits][corrections]
+    public static byte[] report(long receivedBits, long corrections) {
+        byte[] report = new byte[REPORT_SIZE];
+        writeLong(report, 0, receivedBits);
+        writeLong(report, 8, corrections);
+        return report;
+    }
+
+    private static void writeLong(byte[] out, int pos, long value) {
+        for (int k = 0; k < 8; k++) out[pos + k] = (byte) (value >>> (56 - 8 * k));
+    }
+
+    private static long readLong(byte[] in, int pos) {
+        long value = 0;
+        for (int k = 0; k < 8; k++) value = value << 8 | in[pos + k] & 0xFF;
+        return value;
+    }
+}
@@ -0,0 +1,102 @@
+package algorithms;
+
+import java.util.function.DoubleUnaryOperator;
+import java.util.function.Supplier;
+
+//Error correcting code which was applied to payload, id is what goes over the wire
+public enum EncodingType {
+    NONE(0, Uncoded::new, p -> 1, p -> p),
+    REED_SOLOMON_8(1, () -> new ReedSolomon(8), p -> 255.0 / 247, p -> reedSolomonResidual(8, p)),
+    REED_SOLOMON_16(2, () -> new ReedSolomon(16), p -> 255.0 / 239, p -> reedSolomonResidual(16, p)),
+    REED_SOLOMON_32(3, () -> new ReedSolomon(32), p -> 255.0 / 223, p -> reedSolomonResidual(32, p)),
+    REED_SOLOMON_64(4, () -> new ReedSolomon(64), p -> 255.0 / 191, p -> reedSolomonResidual(64, p)),
+    REED_SOLOMON_128(5, () -> new ReedSolomon(128), p -> 255.0 / 127, p -> reedSolomonResidual(128, p)),
+    REPETITION_3(6, () -> new Repetition(3), p -> 3, p -> binomialTail(3, p, 1)),
+    REPETITION_5(7, () -> new Repetition(5), p -> 5, p -> binomialTail(5, p, 2)),
+    //no correction, damaged blocks are sent again until they arrive intact
+    CRC32C(8, CheckedBlocks::new, EncodingType::checkedOverhead, EncodingType::checkedResidual);
+
+    private final int id;
+    private final Supplier<Encoding> factory;
+    private final DoubleUnaryOperator overhead; //channel bit error rate -> expected sent bits per data bit
+    private final DoubleUnaryOperator residual; //channel bit error rate -> rate of wrong data bits after decoding
+
+    EncodingType(int id, Supplier<Encoding> factory, DoubleUnaryOperator overhead, DoubleUnaryOperator residual) {
+        this.id = id;
+        this.factory = factory;
+        this.overhead = overhead;
+        this.residual = residual;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public Encoding create() {
+        return factory.get();
+    }
+
+    public double expectedOverhead(double bitErrorRate) {
+        return overhead.applyAsDouble(bitErrorRate);
+    }
+
+    //expected part of data bits which are still wrong after decoding, if channel flips bits independently with given rate
+    public double residualErrorRate(double bitErrorRate) {
+        return residual.applyAsDouble(bitErrorRate);
+    }
+
+    public static EncodingType fromId(int id) {
+        for (EncodingType type : values())
+            if (type.id == id) return type;
+        throw new IllegalArgumentException("Unknown encoding id: " + id);
+    }
+
+    //codeword fails when more than parityBytes / 2 of its 255 bytes are damaged, then it is left as received:
+    //its data bits are wrong with channel rate, but at least parityBytes / 2 + 1 of them
+    private static double reedSolomonResidual(int parityBytes, double bitErrorRate) {
+        double byteErrorRate = 1 - Math.pow(1 - bitErrorRate, 8);
+        double failure = binomialTail(255, byteErrorRate, parityBytes / 2);
+        return failure * Math.max(bitErrorRate, (parityBytes / 2 + 1.0) / (8 * (255 - parityBytes)));
+    }
+
+    //probability that checked block with its checksum arrives intact
+    private static double intactBlock(double bitErrorRate) {
+        return Math.pow(1 - bitErrorRate, 8.0 * (CheckedBlocks.DEFAULT_BLOCK_SIZE + CheckedBlocks.CRC_BYTES));
+    }
+
+    //every block is sent again until it is intact, so it is sent 1 / intactBlock times on average
+    private static double checkedOverhead(double bitErrorRate) {
+        double intact = intactBlock(bitErrorRate);
+        double size = (CheckedBlocks.DEFAULT_BLOCK_SIZE + CheckedBlocks.CRC_BYTES) / (double) CheckedBlocks.DEFAULT_BLOCK_SIZE;
+        return intact > 0 ? size / intact : Double.POSITIVE_INFINITY;
+    }
+
+    //damaged block is accepted only if its checksum still matches, which happens with probability 2^-32
+    private static double checkedResidual(double bitErrorRate) {
+        return (1 - intactBlock(bitErrorRate)) * 0x1p-32;
+    }
+
+    //probability of more than k successes out of n with probability p each, summed from the tail so tiny values are not lost;
+    //when the tail holds most of probability its first term can underflow, then it is 1 - sum of head
+    static double binomialTail(int n, double p, int k) {
+        if (p <= 0) return 0;
+        if (p >= 1) return k < n ? 1 : 0;
+        if (k >= n) return 0;
+        if (n * p > k) {
+            double logTerm = n * Math.log1p(-p), head = 0;
+            for (int i = 0; i <= k; i++) {
+                head += Math.exp(logTerm);
+                logTerm += Math.log((double) (n - i) / (i + 1) * p / (1 - p));
+            }
+            return Math.max(0, 1 - head);
+        }
+        double logTerm = (k + 1) * Math.log(p) + (n - k - 1) * Math.log1p(-p);
+        for (int i = 0; i <= k; i++) logTerm += Math.log((double) (n - i) / (i + 1));
+        double term = Math.exp(logTerm), sum = 0;
+        for (int i = k + 1; i <= n; i++) {
+            sum += term;
+            term *= (double) (n - i) / (i + 1) * p / (1 - p);
+        }
+        return Math.min(1, sum);
+    }
+}
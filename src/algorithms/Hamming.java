@@ -1,141 +1,124 @@
 package algorithms;
 
-import java.util.ArrayList;
+import java.util.Arrays;
 
-class Hamming implements Encoding {
-    private byte[][] matrix;
-    private byte[] syndromeMatrix;
-    private int numberOfControlBits;
-    private int codeWordLength;
+//Extended Hamming (SECDED) code: every data word gets one check byte, single errors are corrected and double errors detected
+public class Hamming implements Encoding {
+    private static final int LENGTH_BYTES = 4; //original length is sent in first word(s), protected as data
 
-    Hamming(int codeWordLength) {
-        this.codeWordLength = codeWordLength;
-        findNumberOfControlBits();
-        constructMatrix();
-    }
+    private final int wordBytes; //data bytes of one codeword
+    private final int checkBits; //Hamming check bits, one more bit is overall parity
+    private final int[] byteSyndromes; //[byte index * 256 + byte value] -> syndrome | data parity << checkBits
+    private final int[] syndromeToBit; //syndrome -> byte index * 8 + bit of data bit at that position, -1 if it is not data bit
+    private long corrections; //corrected bits, and 2 for each word with detected double error
 
-    @Override
-    public byte[] encode(byte[] input) {
-        input = prepareToHamming(input, codeWordLength);
-        int p = 0;
-        ArrayList<Byte> hammingCodeList = new ArrayList<>();
-        while (p < input.length) {
-            byte[] inputWord = new byte[codeWordLength];
-            System.arraycopy(input, p, inputWord, 0, codeWordLength);
-            byte[] byteCodeWithControlBits = findByteCodeWithControlBits(inputWord, codeWordLength, numberOfControlBits);
-            findSyndromeMatrix(byteCodeWithControlBits);
-            int j = 0;
-            for (int i = 0; i < byteCodeWithControlBits.length; i++)
-                if (is2Exp(i + 1))
-                    byteCodeWithControlBits[i] = syndromeMatrix[j++];
-            for (byte i : byteCodeWithControlBits) hammingCodeList.add(i);
-            p += codeWordLength;
-        }
-        byte[] hammingCode = new byte[hammingCodeList.size()];
-        for (int i = 0; i < hammingCodeList.size(); i++)
-            hammingCode[i] = hammingCodeList.get(i);
-        return hammingCode;
+    public Hamming() {
+        this(64);
     }
 
-    @Override
-    public byte[] decode(byte[] input) {
-        int p = 0;
-        ArrayList<Byte> decodeList = new ArrayList<>();
-        while (p < input.length) {
-            byte[] inputWord = new byte[codeWordLength + numberOfControlBits];
-            System.arraycopy(input, p, inputWord, 0, codeWordLength + numberOfControlBits);
-            findSyndromeMatrix(inputWord);
-            int errorPosition = 0;
-            for (int i = 0; i < syndromeMatrix.length; i++)
-                errorPosition += syndromeMatrix[i] * Math.pow(2, i);
-            if (errorPosition > 0)
-                if (inputWord[errorPosition - 1] == 1) inputWord[errorPosition - 1] = 0;
-                else inputWord[errorPosition - 1] = 1;
-            for (int i = 0; i < inputWord.length; i++)
-                if (!is2Exp(i + 1)) decodeList.add(inputWord[i]);
-            p += codeWordLength + numberOfControlBits;
-        }
-        byte[] decodedCode = new byte[decodeList.size()];
-        for (int i = 0; i < decodeList.size(); i++)
-            decodedCode[i] = decodeList.get(i);
-        decodedCode = deleteAddedZeros(decodedCode, codeWordLength);
-        return decodedCode;
-    }
+    //dataBits is 8, 16, 32 or 64, so codes are (13,8), (22,16), (39,32) or (72,64), each stored with one check byte
+    public Hamming(int dataBits) {
+        if (dataBits != 8 && dataBits != 16 && dataBits != 32 && dataBits != 64)
+            throw new IllegalArgumentException("dataBits must be 8, 16, 32 or 64");
+        wordBytes = dataBits / 8;
+        int r = 0;
+        while ((1 << r) < dataBits + r + 1) r++;
+        checkBits = r;
 
-    //Finding number of parity bits which are needed for current codeWord
-    private void findNumberOfControlBits() {
-        int w = 0;
-        numberOfControlBits = 0;
-        while (w < codeWordLength)
-            if (Math.pow(2, numberOfControlBits) == w + numberOfControlBits + 1) numberOfControlBits++;
-            else w++;
+        //data bits take positions 1, 2, 3... of codeword which are not powers of 2, syndrome of error is its position
+        byteSyndromes = new int[wordBytes * 256];
+        syndromeToBit = new int[1 << checkBits];
+        Arrays.fill(syndromeToBit, -1);
+        int[] position = new int[dataBits];
+        for (int i = 0, pos = 1; i < dataBits; pos++)
+            if ((pos & (pos - 1)) != 0) {
+                position[i] = pos;
+                syndromeToBit[pos] = i;
+                i++;
+            }
+        for (int b = 0; b < wordBytes; b++)
+            for (int v = 0; v < 256; v++) {
+                int value = 0;
+                for (int bit = 0; bit < 8; bit++)
+                    if ((v & 1 << bit) != 0) value ^= position[b * 8 + bit] | 1 << checkBits;
+                byteSyndromes[b * 256 + v] = value;
+            }
     }
 
-    //Adding parity bits to byte code
-    private byte[] findByteCodeWithControlBits(byte[] input, int codeWordLength, int numberOfControlBits) {
-        ArrayList<Byte> list = new ArrayList<>();
-        for (byte i : input) list.add(i);
-        for (int i = 0; i < codeWordLength + numberOfControlBits; i++)
-            if (is2Exp(i + 1)) list.add(i, (byte) 0);
-        byte[] byteCodeWithControlBits = new byte[codeWordLength + numberOfControlBits];
-        for (int i = 0; i < list.size(); i++)
-            byteCodeWithControlBits[i] = list.get(i);
-        return byteCodeWithControlBits;
+    //syndrome and data parity of word starting at pos
+    private int syndrome(byte[] word, int pos) {
+        int value = 0;
+        for (int b = 0; b < wordBytes; b++) value ^= byteSyndromes[b * 256 + (word[pos + b] & 0xFF)];
+        return value;
     }
 
-    //Examine whether number is exponent of 2 or not
-    private boolean is2Exp(int value) {
-        int k = 1;
-        while (value != k) {
-            k *= 2;
-            if (value == k) return true;
-            if (k > value) return false;
-        }
-        return true;
+    //check byte: Hamming check bits and overall parity of data and check bits
+    private int checkByte(int syndrome) {
+        int check = syndrome & ((1 << checkBits) - 1);
+        int parity = (syndrome >>> checkBits ^ Integer.bitCount(check)) & 1;
+        return check | parity << checkBits;
     }
 
-    //Construct transformation matrix
-    private void constructMatrix() {
-        matrix = new byte[numberOfControlBits][codeWordLength + numberOfControlBits];
-        for (int i = 0; i < (codeWordLength + numberOfControlBits); i++) {
-            StringBuilder s = new StringBuilder(Integer.toBinaryString(i + 1));
-            while (s.length() < numberOfControlBits) s.insert(0, "0");
-            for (int k = numberOfControlBits - 1; k > -1; k--)
-                matrix[k][i] = Byte.parseByte(Character.toString(s.charAt(numberOfControlBits - k - 1)));
+    //encoded: words of [length][input][zero padding], each as [data bytes][check byte]
+    @Override
+    public byte[] encode(byte[] input) {
+        int headerWords = (LENGTH_BYTES + wordBytes - 1) / wordBytes;
+        int dataWords = (input.length + wordBytes - 1) / wordBytes;
+        byte[] result = new byte[(headerWords + dataWords) * (wordBytes + 1)];
+
+        //length is written at the end of header words, in front of it there are zeros
+        int pos = headerWords * (wordBytes + 1);
+        byte[] header = new byte[headerWords * wordBytes];
+        for (int k = 0; k < LENGTH_BYTES; k++) header[header.length - 1 - k] = (byte) (input.length >>> (8 * k));
+        for (int w = 0; w < headerWords; w++) {
+            System.arraycopy(header, w * wordBytes, result, w * (wordBytes + 1), wordBytes);
+            result[w * (wordBytes + 1) + wordBytes] = (byte) checkByte(syndrome(header, w * wordBytes));
         }
-    }
 
-    //Finding syndrome matrix
-    private void findSyndromeMatrix(byte[] byteCodeWithControlBits) {
-        syndromeMatrix = new byte[numberOfControlBits];
-        for (int i = 0; i < numberOfControlBits; i++) {
-            byte sum = 0;
-            for (int k = 0; k < byteCodeWithControlBits.length; k++)
-                sum += byteCodeWithControlBits[k] * matrix[i][k];
-            syndromeMatrix[i] = Byte.parseByte(Integer.toString(sum % 2));
+        int full = input.length / wordBytes;
+        for (int w = 0; w < full; w++) {
+            System.arraycopy(input, w * wordBytes, result, pos, wordBytes);
+            result[pos + wordBytes] = (byte) checkByte(syndrome(input, w * wordBytes));
+            pos += wordBytes + 1;
         }
+        if (full < dataWords) {
+            //padding of result is already zero, so last word is checked in place
+            System.arraycopy(input, full * wordBytes, result, pos, input.length - full * wordBytes);
+            result[pos + wordBytes] = (byte) checkByte(syndrome(result, pos));
+        }
+        return result;
     }
 
-    //Number of zeros which should be added to the input so that input length should multiple by codeword length
-    private static int prepareToHammingCount(byte[] arr, int codeWordLength) {
-        int b = arr.length % codeWordLength, p = 0;
-        for (int i = arr.length - 1; i < (arr.length - 1) + codeWordLength - b; i++) p++;
-        return p;
-    }
+    @Override
+    public byte[] decode(byte[] input) {
+        int words = input.length / (wordBytes + 1);
+        byte[] data = new byte[words * wordBytes];
+        for (int w = 0, pos = 0; w < words; w++, pos += wordBytes + 1) {
+            System.arraycopy(input, pos, data, w * wordBytes, wordBytes);
+            int received = input[pos + wordBytes] & ((2 << checkBits) - 1); //bits above parity are not used
+            int value = syndrome(data, w * wordBytes);
+            int syndrome = (value ^ received) & ((1 << checkBits) - 1);
+            int parity = (value >>> checkBits ^ Integer.bitCount(received)) & 1;
+            //odd parity means one error: in data bit if syndrome points to one, otherwise in check byte itself
+            //even parity with nonzero syndrome means two errors, which cannot be corrected
+            if (parity == 1 && syndrome != 0 && syndrome < syndromeToBit.length && syndromeToBit[syndrome] >= 0) {
+                int bit = syndromeToBit[syndrome];
+                data[w * wordBytes + bit / 8] ^= 1 << (bit % 8);
+            }
+            if (parity == 1) corrections++;
+            else if (syndrome != 0) corrections += 2;
+        }
 
-    //Adding zeros to input
-    private static byte[] prepareToHamming(byte[] arr, int codeWordLength) {
-        byte[] arr2 = new byte[arr.length + prepareToHammingCount(arr, codeWordLength)];
-        for (int i = 0; i < arr2.length; i++)
-            if (i < arr.length) arr2[i] = arr[i];
-            else arr2[i] = 0;
-        return arr2;
+        int headerBytes = (LENGTH_BYTES + wordBytes - 1) / wordBytes * wordBytes;
+        if (data.length < headerBytes) throw new IllegalArgumentException("Hamming input is too short");
+        int length = 0;
+        for (int k = headerBytes - LENGTH_BYTES; k < headerBytes; k++) length = length << 8 | data[k] & 0xFF;
+        if (length < 0 || length > data.length - headerBytes) throw new IllegalArgumentException("Invalid Hamming length");
+        return Arrays.copyOfRange(data, headerBytes, headerBytes + length);
     }
 
-    //Deleting added zeros from output
-    private static byte[] deleteAddedZeros(byte[] arr, int codeWordLength) {
-        byte[] arr2 = new byte[arr.length - prepareToHammingCount(arr, codeWordLength) + 1];
-        System.arraycopy(arr, 0, arr2, 0, arr2.length);
-        return arr2;
+    @Override
+    public long corrections() {
+        return corrections;
     }
 }
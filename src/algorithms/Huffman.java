@@ -1,306 +1,286 @@
 package algorithms;
 
-import java.util.*;
+import java.util.Arrays;
 
 public class Huffman implements Compression {
-    //Node of algorithms.Huffman tree
-    private class Node {
-        private byte b; //Node is associated with byte
-        private Node left, right; //children
-        private int count; //how many times this node with the byte occurs in text
-        private ArrayList<Integer> code; //code of this byte
+    private static final int MAX_CODE_LENGTH = 15; //longest allowed code, keeps decode table within 2^15 entries and length in a nibble
+    private static final int HEADER_DENSE = 0; //code lengths are stored as 128 bytes of nibbles
+    private static final int HEADER_SPARSE = 1; //code lengths are stored as (byte, length) pairs
 
-        //empty constructor
-        Node() {
-            this.left = null;
-            this.right = null;
-            this.b = 0;
-            this.count = 0;
-            this.code = new ArrayList<>();
-        }
-
-        //constructor with given children, byte and count
-        Node(Node left, Node right, byte b, int count) {
-            this.left = left;
-            this.right = right;
-            this.b = b;
-            this.count = count;
-            this.code = new ArrayList<>();
-        }
-
-        //set given byte for this node
-        void setByte(byte b) {
-            this.b = b;
-        }
-
-        //get byte of this node
-        byte getByte() {
-            return this.b;
-        }
-
-        //get left child (equals to transition by bit = 0)
-        Node getLeft() {
-            return this.left;
-        }
+    private final HuffmanModel model; //static code tables, null if codes are built for each payload
 
-        //set left child
-        void setLeft(Node node) {
-            this.left = node;
-        }
+    public Huffman() {
+        this(null);
+    }
 
-        //get right child (equals to transition by bit = 1)
-        Node getRight() {
-            return this.right;
-        }
+    public Huffman(HuffmanModel model) {
+        this.model = model;
+    }
 
-        //set right child
-        void setRight(Node node) {
-            this.right = node;
-        }
+    //count number of each byte type
+    static int[] countFrequencies(byte[] byteArray) {
+        int[] freq = new int[256];
+        for (byte b : byteArray) freq[b & 0xFF]++;
+        return freq;
+    }
 
-        //get count
-        int getCount() {
-            return this.count;
-        }
+    //build code length of each byte from frequencies, rescaling frequencies until the longest code fits MAX_CODE_LENGTH
+    static int[] buildCodeLengths(int[] freq) {
+        int[] lengths = new int[256];
+        long[] weights = new long[256];
+        for (int i = 0; i < 256; i++) weights[i] = freq[i];
+        while (true) {
+            //sort present bytes by frequency, byte is kept in lowest 8 bits
+            long[] sorted = new long[256];
+            int n = 0;
+            for (int i = 0; i < 256; i++)
+                if (weights[i] > 0) sorted[n++] = weights[i] << 8 | i;
+            if (n == 0) return lengths;
+            if (n == 1) {
+                //if there is only 1 byte, it still needs 1 bit code
+                lengths[(int) (sorted[0] & 0xFF)] = 1;
+                return lengths;
+            }
+            Arrays.sort(sorted, 0, n);
+
+            //two-queue Huffman algorithm: leaves are 0..n-1 (already sorted), internal nodes n..2n-2 are created in increasing weight
+            long[] weight = new long[2 * n - 1];
+            int[] parent = new int[2 * n - 1];
+            for (int i = 0; i < n; i++) weight[i] = sorted[i] >>> 8;
+            int leaf = 0, node = n;
+            for (int next = n; next < 2 * n - 1; next++) {
+                int a = leaf < n && (node >= next || weight[leaf] <= weight[node]) ? leaf++ : node++;
+                int b = leaf < n && (node >= next || weight[leaf] <= weight[node]) ? leaf++ : node++;
+                weight[next] = weight[a] + weight[b];
+                parent[a] = parent[b] = next;
+            }
 
-        //set code of current node
-        void setCode(Node parent) {
-            this.code = new ArrayList<>(parent.getCode());
-            this.code.add(parent.getLeft() == this ? 0 : 1);
-        }
+            //parent is always created after its children, so depths can be found in one backward pass
+            int[] depth = new int[2 * n - 1];
+            int maxLength = 0;
+            for (int i = 2 * n - 3; i >= 0; i--) {
+                depth[i] = depth[parent[i]] + 1;
+                maxLength = Math.max(maxLength, depth[i]);
+            }
+            if (maxLength <= MAX_CODE_LENGTH) {
+                for (int i = 0; i < n; i++) lengths[(int) (sorted[i] & 0xFF)] = depth[i];
+                return lengths;
+            }
 
-        //get code of current node
-        ArrayList<Integer> getCode() {
-            return this.code;
+            //tree is too deep, flatten distribution and try again
+            for (int i = 0; i < 256; i++)
+                if (weights[i] > 0) weights[i] = (weights[i] + 1) >>> 1;
         }
     }
 
-    //convert byte to bits sequence
-    private ArrayList<Integer> byteToBits(byte b) {
-        Integer value = b + 128;
-        ArrayList<Integer> bits = new ArrayList<>();
-        for (int i = 0; i < 8; i++) {
-            bits.add(0, value & 1);
-            value = value >> 1;
+    //assign canonical codes: shorter codes first, bytes of equal length in increasing order
+    static int[] buildCanonicalCodes(int[] lengths) {
+        int[] lengthCount = new int[MAX_CODE_LENGTH + 1];
+        for (int length : lengths) if (length > 0) lengthCount[length]++;
+        int[] nextCode = new int[MAX_CODE_LENGTH + 1];
+        int code = 0;
+        for (int length = 1; length <= MAX_CODE_LENGTH; length++) {
+            code = (code + lengthCount[length - 1]) << 1;
+            nextCode[length] = code;
         }
-        return bits;
+        int[] codes = new int[256];
+        for (int i = 0; i < 256; i++)
+            if (lengths[i] > 0) codes[i] = nextCode[lengths[i]]++;
+        return codes;
     }
 
-    //convert int to bits sequence
-    private ArrayList<Integer> intToBits(long value) {
-        ArrayList<Integer> bits = new ArrayList<>();
-        do {
-            bits.add(0, (int) (value & 1));
-            value = value >> 1;
-        } while (value > 0);
-        return bits;
+    //longest code among given lengths
+    private static int maxLength(int[] lengths) {
+        int max = 0;
+        for (int length : lengths) max = Math.max(max, length);
+        return max;
     }
 
-    //convert bits sequence to byte
-    private byte bitsToByte(ArrayList<Integer> bits) {
-        int value = 0;
-        for (int i = 0; i < 8; i++)
-            value |= bits.get(i) << (7 - i);
-        return (byte) (value - 128);
+    //decode table indexed by next maxLength bits, each entry is (byte << 4) | code length
+    static int[] buildDecodeTable(int[] lengths, int[] codes, int maxLength) {
+        int[] table = new int[1 << maxLength];
+        for (int i = 0; i < 256; i++)
+            if (lengths[i] > 0) {
+                int shift = maxLength - lengths[i];
+                int from = codes[i] << shift, to = (codes[i] + 1) << shift;
+                Arrays.fill(table, from, to, i << 4 | lengths[i]);
+            }
+        return table;
     }
 
-    //get bit at given position from byteArray
-    private int getBit(byte[] byteArray, long pos) {
-        int value = byteArray[(int) (pos / 8)] + 128;
-        return (value >> (7 - pos % 8)) & 1;
+    //write code lengths as header, sparse layout is used when few bytes are present
+    private static int writeHeader(byte[] out, int pos, int[] lengths) {
+        int present = 0;
+        for (int length : lengths) if (length > 0) present++;
+        if (1 + 2 * present < 128) {
+            out[pos++] = HEADER_SPARSE;
+            out[pos++] = (byte) present;
+            for (int i = 0; i < 256; i++)
+                if (lengths[i] > 0) {
+                    out[pos++] = (byte) i;
+                    out[pos++] = (byte) lengths[i];
+                }
+        } else {
+            out[pos++] = HEADER_DENSE;
+            for (int i = 0; i < 256; i += 2)
+                out[pos++] = (byte) (lengths[i] << 4 | lengths[i + 1]);
+        }
+        return pos;
     }
 
-    //show HuffmanTree
-    private void showTree(Node curNode) {
-        if (curNode.getLeft() == null)
-            System.out.println(curNode.getByte() + " " + curNode.getCode());
-        else {
-            showTree(curNode.getLeft());
-            showTree(curNode.getRight());
-        }
+    //size of header written by writeHeader
+    static int headerSize(int[] lengths) {
+        int present = 0;
+        for (int length : lengths) if (length > 0) present++;
+        return 1 + 2 * present < 128 ? 2 + 2 * present : 129;
     }
 
-    //convert algorithms.Huffman Tree to bits sequence
-    private void huffmanTreeToBits(Node curNode, ArrayList<Integer> bits, ArrayList<Byte> bytes) {
-        //each node has 2 children or 0 children
-        // if it has 0 children, curNode.getLeft == null
-        if (curNode.getLeft() == null) {
-            //so Node has 0 children
-            bits.add(0); //add 0 to bits sequence
-            bits.addAll(byteToBits(curNode.getByte())); //add Node number as bits sequence to encodedAsBits
-            //add 'ready' bytes
-            while (bits.size() >= 8) {
-                bytes.add(bitsToByte(bits));
-                for (int i = 0; i < 8; i++)
-                    bits.remove(0);
+    //read code lengths from header, returns position after header
+    private static int readHeader(byte[] in, int pos, int[] lengths) {
+        if (in[pos++] == HEADER_SPARSE) {
+            int present = in[pos++] & 0xFF;
+            for (int i = 0; i < present; i++) {
+                int b = in[pos++] & 0xFF;
+                lengths[b] = in[pos++] & 0xF;
             }
-        } else {
-            //so Node has 2 children
-            bits.add(1); //add 1 to bits sequence
-            //add 'ready' bytes
-            while (bits.size() >= 8) {
-                bytes.add(bitsToByte(bits));
-                for (int i = 0; i < 8; i++)
-                    bits.remove(0);
+        } else
+            for (int i = 0; i < 256; i += 2) {
+                lengths[i] = (in[pos] >>> 4) & 0xF;
+                lengths[i + 1] = in[pos++] & 0xF;
             }
-            huffmanTreeToBits(curNode.getLeft(), bits, bytes); //go to left child
-            huffmanTreeToBits(curNode.getRight(), bits, bytes); //go to right child
-        }
+        return pos;
     }
 
-    //build algorithms.Huffman Tree from byteArray
-    private int buildHuffmanTreeFromByteArray(Node curNode, byte[] byteArray, int pos) {
-        //we are now at some Node
-        if (getBit(byteArray, pos) == 1) {
-            //if bit is equal to 1, so it has 2 children
-            pos++;
-
-            curNode.setLeft(new Node(null, null, (byte) 0, 0)); //create left child
-            curNode.getLeft().setCode(curNode); //set code to left child
-            pos = buildHuffmanTreeFromByteArray(curNode.getLeft(), byteArray, pos); //go to left child
-
-            curNode.setRight(new Node(null, null, (byte) 0, 0)); //create right child
-            curNode.getRight().setCode(curNode); //set code to right child
-            pos = buildHuffmanTreeFromByteArray(curNode.getRight(), byteArray, pos); //go to right child
-            return pos;
-        } else {
-            //if bit is equal to 0, so it has 0 children
-            //next 8 bits is the byte that Node is encoding
-            pos++;
-            ArrayList<Integer> bits = new ArrayList<>();
-            for (int i = 0; i < 8; i++) {
-                bits.add(getBit(byteArray, pos));
-                pos++;
-            }
-            curNode.setByte(bitsToByte(bits));
-            return pos;
-        }
+    //write 4-byte big-endian int
+    private static void writeInt(byte[] out, int pos, int value) {
+        out[pos] = (byte) (value >>> 24);
+        out[pos + 1] = (byte) (value >>> 16);
+        out[pos + 2] = (byte) (value >>> 8);
+        out[pos + 3] = (byte) value;
     }
 
-    //initialize codes to each node of algorithms.Huffman Tree
-    private void setCodesToHuffmanTreeNodes(Node curNode, Node parent) {
-        if (parent != null) curNode.setCode(parent);
-        if (curNode.getLeft() != null) {
-            setCodesToHuffmanTreeNodes(curNode.getLeft(), curNode);
-            setCodesToHuffmanTreeNodes(curNode.getRight(), curNode);
-        }
+    //read 4-byte big-endian int
+    private static int readInt(byte[] in, int pos) {
+        return (in[pos] & 0xFF) << 24 | (in[pos + 1] & 0xFF) << 16 | (in[pos + 2] & 0xFF) << 8 | in[pos + 3] & 0xFF;
     }
 
-    //encode byteArray
-    private byte[] encode(byte[] byteArray) {
-        Map<Byte, Integer> count = new HashMap<>();
-
-        //counting number of each byte type
-        for (byte i : byteArray)
-            if (!count.containsKey(i)) count.put(i, 1);
-            else count.put(i, count.get(i) + 1);
-
-        //Priority queue with given comparator for sorting Nodes by frequency in byteArray
-        Queue<Node> q = new PriorityQueue<>(1, Comparator.comparingInt(Node::getCount));
-
-        //get node by given byte
-        Map<Byte, Node> byteToNode = new HashMap<>();
-
-        //create Nodes for each byte
-        for (Byte b : count.keySet()) {
-            Node node = new Node(null, null, b, count.get(b));
-            q.add(node);
-            byteToNode.put(b, node);
-        }
-
-        //if there is only 1 byte, lets create 'fake' byte
-        if (q.size() == 1) {
-            q.add(new Node(null, null, (byte) 0, 0));
-        }
-
-        //building algorithms.Huffman tree following algorithms.Huffman algorithm
-        while (q.size() > 1) {
-            Node n1 = q.poll(), n2 = q.poll();
-            q.add(new Node(n1, n2, (byte) 0, n1.getCount() + n2.getCount()));
-        }
-
-        //encoded byteArray as bits sequence
-        ArrayList<Integer> encodedAsBits = new ArrayList<>();
-        ArrayList<Byte> encodedAsBytes = new ArrayList<>();
-
-        Node root = q.poll(); //get root of algorithms.Huffman Tree
-        setCodesToHuffmanTreeNodes(root, null); //set codes to each node of Tree
-        huffmanTreeToBits(root, encodedAsBits, encodedAsBytes); //convert algorithms.Huffman tree to bits sequence
-
-        //convert each byte to his code and add to encodedAsBits;
-        for (byte i : byteArray) {
-            encodedAsBits.addAll(byteToNode.get(i).getCode());
-            //add 'ready' bytes
-            while (encodedAsBits.size() >= 8) {
-                encodedAsBytes.add(bitsToByte(encodedAsBits));
-                for (int j = 0; j < 8; j++)
-                    encodedAsBits.remove(0);
+    //encode bytes with given codes starting at pos of out, bits are collected in 64-bit accumulator and flushed 32 at a time
+    static int encodeSymbols(byte[] byteArray, int[] lengths, int[] codes, byte[] out, int pos) {
+        long acc = 0;
+        int accBits = 0;
+        for (byte b : byteArray) {
+            int s = b & 0xFF;
+            acc = acc << lengths[s] | codes[s];
+            accBits += lengths[s];
+            if (accBits >= 32) {
+                accBits -= 32;
+                int word = (int) (acc >>> accBits);
+                out[pos] = (byte) (word >>> 24);
+                out[pos + 1] = (byte) (word >>> 16);
+                out[pos + 2] = (byte) (word >>> 8);
+                out[pos + 3] = (byte) word;
+                pos += 4;
             }
         }
-
-        int dontUse = 0; // number of useless bits
+        while (accBits >= 8) {
+            accBits -= 8;
+            out[pos++] = (byte) (acc >>> accBits);
+        }
         //add bits to the end if it is necessary
-        if (encodedAsBits.size() > 0) {
-            while (encodedAsBits.size() < 8) {
-                encodedAsBits.add(0);
-                dontUse++;
+        if (accBits > 0) out[pos++] = (byte) (acc << (8 - accBits));
+        return pos;
+    }
+
+    //decode count bytes starting at pos of in, next maxLength bits are looked up in table at once
+    static void decodeSymbols(byte[] in, int pos, int[] table, int maxLength, byte[] out, int count) {
+        long buf = 0; //bits are kept left-aligned
+        int bufBits = 0;
+        for (int i = 0; i < count; i++) {
+            if (bufBits < maxLength) {
+                //refill; past the end of input zeros are read, which only happens in the padding of the last byte
+                while (bufBits <= 56) {
+                    long b = pos < in.length ? in[pos++] & 0xFF : 0;
+                    buf |= b << (56 - bufBits);
+                    bufBits += 8;
+                }
             }
-            encodedAsBytes.add(bitsToByte(encodedAsBits));
+            int entry = table[(int) (buf >>> (64 - maxLength))];
+            int length = entry & 0xF;
+            if (length == 0) throw new IllegalArgumentException("Invalid Huffman code");
+            out[i] = (byte) (entry >>> 4);
+            buf <<= length;
+            bufBits -= length;
         }
+    }
 
-        encodedAsBytes.add(0, (byte) (dontUse - 128));
-
-        byte[] encoded = new byte[encodedAsBytes.size()]; //encoded byteArray as bytes sequence
-
-        //convert ArrayList to byte array
-        for (int i = 0; i < encodedAsBytes.size(); i++)
-            encoded[i] = encodedAsBytes.get(i);
+    //total number of bits needed to encode bytes with given frequencies and lengths
+    static long encodedBits(int[] freq, int[] lengths) {
+        long bits = 0;
+        for (int i = 0; i < 256; i++) bits += (long) freq[i] * lengths[i];
+        return bits;
+    }
 
+    //encode byteArray: [original length][code lengths][canonical codes]
+    private byte[] encode(byte[] byteArray) {
+        if (byteArray.length == 0) return new byte[4];
+        int[] freq = countFrequencies(byteArray);
+        int[] lengths = buildCodeLengths(freq);
+        int[] codes = buildCanonicalCodes(lengths);
+        int size = Math.toIntExact(4 + headerSize(lengths) + (encodedBits(freq, lengths) + 7) / 8);
+        byte[] encoded = new byte[size];
+        writeInt(encoded, 0, byteArray.length);
+        int pos = writeHeader(encoded, 4, lengths);
+        encodeSymbols(byteArray, lengths, codes, encoded, pos);
         return encoded;
     }
 
     private byte[] decode(byte[] byteArray) {
-        int dontUse = byteArray[0] + 128; //number of useless bits
-        int pos = 8; //start from 8-th bit (counting from 0), because first 8 bits is for dontUse
-        int bitsCnt = 8 * byteArray.length; //number of bits = 8 * number of bytes
-        ArrayList<Byte> decodedAsBytesList = new ArrayList<>(); //decoded bytes
-
-        Node root = new Node(); //create root of algorithms.Huffman Tree
-        pos = buildHuffmanTreeFromByteArray(root, byteArray, pos); //build algorithms.Huffman Tree from bits sequence
-
-        //look throw bits
-        while (pos < bitsCnt - dontUse) {
-            Node curNode = root;
+        int count = readInt(byteArray, 0);
+        if (count < 0) throw new IllegalArgumentException("Invalid Huffman length");
+        byte[] decoded = new byte[count];
+        if (count == 0) return decoded;
+        int[] lengths = new int[256];
+        int pos = readHeader(byteArray, 4, lengths);
+        int maxLength = maxLength(lengths);
+        if (maxLength == 0) throw new IllegalArgumentException("Invalid Huffman header");
+        int[] table = buildDecodeTable(lengths, buildCanonicalCodes(lengths), maxLength);
+        decodeSymbols(byteArray, pos, table, maxLength, decoded, count);
+        return decoded;
+    }
 
-            //go down via Tree while we can
-            while (curNode.getLeft() != null) {
-                if (getBit(byteArray, pos) == 0)
-                    //if current bit is equal to 0, it means we should go to left child
-                    curNode = curNode.getLeft();
-                else
-                    //if current bit is equal to 1, it means we should go to right child
-                    curNode = curNode.getRight();
-                pos++;
-            }
+    //encode byteArray with static model: [original length as varint][codes], no code lengths are needed
+    private byte[] encodeWithModel(byte[] byteArray) {
+        int lengthSize = 1;
+        while (lengthSize < 5 && byteArray.length >>> (7 * lengthSize) != 0) lengthSize++;
+        byte[] encoded = new byte[Math.toIntExact(lengthSize + (model.encodedBits(byteArray) + 7) / 8)];
+        int pos = 0, value = byteArray.length;
+        for (; (value & ~0x7F) != 0; value >>>= 7) encoded[pos++] = (byte) (value | 0x80);
+        encoded[pos++] = (byte) value;
+        encodeSymbols(byteArray, model.lengths, model.codes, encoded, pos);
+        return encoded;
+    }
 
-            //add byte (that is encoded by current Node) to decoded bytes sequence
-            decodedAsBytesList.add(curNode.getByte());
+    private byte[] decodeWithModel(byte[] byteArray) {
+        int count = 0, pos = 0;
+        for (int shift = 0; ; shift += 7) {
+            if (pos >= byteArray.length || shift > 28) throw new IllegalArgumentException("Invalid Huffman length");
+            byte b = byteArray[pos++];
+            count |= (b & 0x7F) << shift;
+            if (b >= 0) break;
         }
-
-        //convert ArrayList to byte array
-        byte[] decodedAsBytesArray = new byte[decodedAsBytesList.size()];
-        for (int i = 0; i < decodedAsBytesList.size(); i++)
-            decodedAsBytesArray[i] = decodedAsBytesList.get(i);
-        return decodedAsBytesArray;
+        if (count < 0) throw new IllegalArgumentException("Invalid Huffman length");
+        byte[] decoded = new byte[count];
+        decodeSymbols(byteArray, pos, model.decodeTable, model.maxLength, decoded, count);
+        return decoded;
     }
 
     @Override
     public byte[] compress(byte[] byteArray) {
-        return encode(byteArray);
+        return model == null ? encode(byteArray) : encodeWithModel(byteArray);
     }
 
     @Override
     public byte[] decompress(byte[] byteArray) {
-        return decode(byteArray);
+        return model == null ? decode(byteArray) : decodeWithModel(byteArray);
     }
-}
\ No newline at end of file
+}
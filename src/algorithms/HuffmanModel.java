@@ -0,0 +1,46 @@
+package algorithms;
+
+import java.nio.charset.StandardCharsets;
+
+//Static Huffman code tables trained on typical payloads, so short messages need neither tree building nor header
+public enum HuffmanModel {
+    ENGLISH_CHAT("Server: Hi, how are you doing today? Client: I'm fine, thanks! What about you?\n"
+            + "Server: Good. Did you see the new build? It was sent this morning.\n"
+            + "Client: Yes, I have just tested it and everything works, but the file transfer is still a bit slow.\n"
+            + "Server: OK, let me know when you are ready for the meeting. We should talk about the next release.\n"
+            + "Client: Sure, give me 5 minutes. Can you send me the report, please?\n"
+            + "Server: Of course. Thank you for your help with this, it means a lot to the whole team!\n"
+            + "Client: No problem. See you at 10:30, bye."),
+    JSON("{\"id\": 1024, \"type\": \"message\", \"user\": {\"name\": \"client\", \"online\": true},\n"
+            + " \"text\": \"hello, world\", \"tags\": [\"chat\", \"text\"], \"time\": \"2018-05-17T10:30:00Z\",\n"
+            + " \"data\": {\"values\": [0.5, 12, -3, 4096], \"empty\": null, \"ok\": false}}\n"
+            + "[{\"key\": \"a\", \"value\": 10}, {\"key\": \"b\", \"value\": 20}, {\"key\": \"c\", \"value\": 30}]");
+
+    private static final int TRAINING_WEIGHT = 16; //weight of trained byte against a byte never seen in training
+
+    final int[] lengths;
+    final int[] codes;
+    final int[] decodeTable;
+    final int maxLength;
+
+    HuffmanModel(String trainingText) {
+        //every byte keeps at least count 1, so any payload can be encoded
+        int[] freq = new int[256];
+        for (int i = 0; i < 256; i++) freq[i] = 1;
+        for (byte b : trainingText.getBytes(StandardCharsets.UTF_8))
+            freq[b & 0xFF] += TRAINING_WEIGHT;
+        lengths = Huffman.buildCodeLengths(freq);
+        codes = Huffman.buildCanonicalCodes(lengths);
+        int max = 0;
+        for (int length : lengths) max = Math.max(max, length);
+        maxLength = max;
+        decodeTable = Huffman.buildDecodeTable(lengths, codes, maxLength);
+    }
+
+    //number of bits which payload takes with this model
+    long encodedBits(byte[] byteArray) {
+        long bits = 0;
+        for (byte b : byteArray) bits += lengths[b & 0xFF];
+        return bits;
+    }
+}
@@ -1,215 +1,182 @@
 package algorithms;
 
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Arrays;
 
 public class LZ78 implements Compression {
-    //Save dictionary as Prefix Tree
-    private class Node {
-        private Map<Integer, Node> map = new HashMap<>(); //children of current node
-        private int bit;
-        private Node parent; //parent Node
-        private long nodeNum = 0; //Node number
-
-        //constructor with given Nobe number
-        Node(int num) {
-            this.parent = null;
-            this.nodeNum = num;
-        }
-
-        //constructor with given parent, bit and number
-        private Node(Node par, int b, int num) {
-            this.parent = par;
-            this.bit = b;
-            this.nodeNum = num;
-        }
-
-        //add child to current Node with given bit and number
-        void addChild(int b, int num) {
-            map.put(b, new Node(this, b, num));
-        }
-
-        //return child of current node with given bit
-        Node getChild(int b) {
-            return map.get(b);
-        }
-
-        //check if current Node has child with given bit
-        boolean hasChild(int b) {
-            return map.containsKey(b);
-        }
-
-        //return Node number
-        long getNum() {
-            return this.nodeNum;
-        }
-
-        //return bit
-        int getBit() {
-            return this.bit;
-        }
+    private static final int MIN_CODE_BITS = 9; //256 single bytes + CLEAR code
+    private static final int MAX_CODE_BITS = 20;
+    private static final int CLEAR = 256; //code which tells decoder to reset dictionary
+    private static final int FIRST_CODE = 257; //first code of multi-byte word
+    private static final int RESET_FLAG = 0x80; //set in first header byte if dictionary is reset when full
 
-        //return bits sequence at path from root to current Node
-        ArrayList<Integer> getBits() {
-            ArrayList<Integer> bits = new ArrayList<>();
-            Node curNode = this;
-            while (curNode.parent != null) {
-                bits.add(0, curNode.getBit());
-                curNode = curNode.parent;
-            }
-            return bits;
-        }
-    }
+    private final int maxCodeBits; //dictionary holds at most 2^maxCodeBits words
+    private final boolean resetWhenFull; //reset dictionary when full, otherwise keep using it as is
 
-    //return bit of byteArray at given position
-    private int getBit(byte[] byteArray, long pos) {
-        int value = byteArray[(int) (pos / 8)] + 128;
-        return (value >> (7 - pos % 8)) & 1;
+    public LZ78() {
+        this(16, true);
     }
 
-    //convert int to bits sequence
-    private ArrayList<Integer> intToBits(long value) {
-        ArrayList<Integer> bits = new ArrayList<>();
-        do {
-            bits.add(0, (int) (value & 1));
-            value = value >> 1;
-        } while (value > 0);
-        return bits;
+    public LZ78(int maxCodeBits, boolean resetWhenFull) {
+        if (maxCodeBits < MIN_CODE_BITS || maxCodeBits > MAX_CODE_BITS)
+            throw new IllegalArgumentException("maxCodeBits must be in [" + MIN_CODE_BITS + ", " + MAX_CODE_BITS + "]");
+        this.maxCodeBits = maxCodeBits;
+        this.resetWhenFull = resetWhenFull;
     }
 
-    //convert bits sequence to int
-    private long bitsToInt(ArrayList<Integer> bits) {
-        long value = 0;
-        for (int i = 0; i < bits.size(); i++)
-            value += (bits.get(i) << (bits.size() - i - 1));
-        return value;
+    //number of bits of k-th code after last reset: it can be at most 256 + k, but never more than dictionary size
+    private static int codeBits(int k, int capacity) {
+        return 32 - Integer.numberOfLeadingZeros(Math.min(CLEAR + k, capacity - 1));
     }
 
-    //convert bits sequence to byte
-    private byte bitsToByte(ArrayList<Integer> bits) {
-        int value = 0;
-        for (int i = 0; i < 8; i++)
-            value |= bits.get(i) << (7 - i);
-        return (byte) (value - 128);
+    //slot of (word, byte) key in open addressing table
+    private static int hash(int key, int tableBits) {
+        return (key * 0x9E3779B1) >>> (32 - tableBits);
     }
 
+    //compressed: [maxCodeBits | reset flag][original length][codes]
     @Override
     public byte[] compress(final byte[] byteArray) {
-        int nodesCnt = 0; //number of nodes in Prefix Tree = number of words in dictionary
-        Node root = new Node(nodesCnt++); //create root of Prefix Tree
-        ArrayList<Integer> compressedAsBits = new ArrayList<>(); //bits sequence = compressed byteArray
-        ArrayList<Byte> compressedAsBytes = new ArrayList<>(); //bytes sequence of compressed byteArray
-        final long bitsCnt = byteArray.length * 8; //number of bits = 8 * number of bytes
-        long pos = 0; //current bit position at byteArray
-
-        //while current bit position is in byteArray
-        while (pos < bitsCnt) {
-            Node curNode = root;
-
-            //first bit automatically connected to root
-            if (pos == 0) {
-                compressedAsBits.add(getBit(byteArray, pos));
-                curNode.addChild(getBit(byteArray, pos), nodesCnt++);
-                pos++;
+        final int capacity = 1 << maxCodeBits;
+        //table is at most half full; short inputs can never fill the whole dictionary, so they get smaller table
+        final int tableBits = Math.min(maxCodeBits, 32 - Integer.numberOfLeadingZeros(FIRST_CODE + byteArray.length)) + 1;
+        final int mask = (1 << tableBits) - 1;
+        int[] keys = new int[1 << tableBits]; //(word << 8 | byte), -1 is empty slot
+        int[] values = new int[1 << tableBits]; //code of word extended by byte
+        Arrays.fill(keys, -1);
+
+        byte[] out = new byte[Math.max(16, byteArray.length / 2)];
+        out[0] = (byte) (maxCodeBits | (resetWhenFull ? RESET_FLAG : 0));
+        out[1] = (byte) (byteArray.length >>> 24);
+        out[2] = (byte) (byteArray.length >>> 16);
+        out[3] = (byte) (byteArray.length >>> 8);
+        out[4] = (byte) byteArray.length;
+        int pos = 5;
+        if (byteArray.length == 0) return Arrays.copyOf(out, pos);
+
+        long acc = 0; //bit accumulator
+        int accBits = 0;
+        int nodesCnt = FIRST_CODE; //number of words in dictionary
+        int k = 0; //number of codes written since last reset
+        int cur = byteArray[0] & 0xFF; //code of the longest word found so far
+        for (int i = 1; i <= byteArray.length; i++) {
+            int b = i < byteArray.length ? byteArray[i] & 0xFF : -1;
+            int slot = 0;
+            if (b >= 0) {
+                //try to extend current word
+                int key = cur << 8 | b;
+                slot = hash(key, tableBits);
+                while (keys[slot] != -1 && keys[slot] != key) slot = (slot + 1) & mask;
+                if (keys[slot] == key) {
+                    cur = values[slot];
+                    continue;
+                }
             }
 
-            //find the longest bits sequence, which is in dictionary
-            while (pos < bitsCnt && curNode.hasChild(getBit(byteArray, pos))) {
-                curNode = curNode.getChild(getBit(byteArray, pos));
-                pos++;
+            //write code of current word, with CLEAR after it if dictionary became full
+            int codes = 1;
+            if (b >= 0 && nodesCnt < capacity) {
+                keys[slot] = cur << 8 | b;
+                values[slot] = nodesCnt++;
+                if (nodesCnt == capacity && resetWhenFull) codes = 2;
             }
-
-            ArrayList<Integer> curNodeNumAsBits = intToBits(curNode.getNum()); //current word number as bits sequence
-            int numLen = (int) Math.ceil(Math.log(nodesCnt) / Math.log(2)); /// if there are k words in dictionary, we need upper(log2(k)) bits to code each word number
-            //adding some 0 bits to beginning of current word number
-            while (curNodeNumAsBits.size() < numLen)
-                curNodeNumAsBits.add(0, 0);
-
-            //add current word number (as bits) to compressedAsBits
-            compressedAsBits.addAll(curNodeNumAsBits);
-            if(pos < bitsCnt) {
-                compressedAsBits.add(getBit(byteArray, pos));
-                curNode.addChild(getBit(byteArray, pos), nodesCnt++);
-            }
-
-            //add 'full' bytes to compressedAsBytes and delete them from compressedAsBits
-            while (compressedAsBits.size() >= 8) {
-                compressedAsBytes.add(bitsToByte(compressedAsBits));
-                for (int i = 0; i < 8; i++)
-                    compressedAsBits.remove(0);
+            for (int c = 0; c < codes; c++) {
+                int bits = codeBits(k++, capacity);
+                acc = acc << bits | (c == 0 ? cur : CLEAR);
+                accBits += bits;
+                if (pos + 8 > out.length) out = Arrays.copyOf(out, out.length * 2);
+                while (accBits >= 8) {
+                    accBits -= 8;
+                    out[pos++] = (byte) (acc >>> accBits);
+                }
             }
-
-            pos++;
-        }
-
-        int dontUse = 0; //number of useless bits at the end
-
-        //add last bits to compressedAsBytes
-        if (compressedAsBits.size() > 0) {
-            while (compressedAsBits.size() < 8) {
-                compressedAsBits.add(0);
-                dontUse++;
+            if (codes == 2) {
+                Arrays.fill(keys, -1);
+                nodesCnt = FIRST_CODE;
+                k = 0;
             }
-            compressedAsBytes.add(bitsToByte(compressedAsBits));
+            cur = b;
         }
 
-        //add number of useless bits as first byte
-        compressedAsBytes.add(0, (byte) (dontUse - 127));
-
-        //convert ArrayList to byte array
-        byte[] compressed = new byte[compressedAsBytes.size()];
-        for (int i = 0; i < compressedAsBytes.size(); i++)
-            compressed[i] = compressedAsBytes.get(i);
-        return compressed;
+        //add last bits
+        if (accBits > 0) out[pos++] = (byte) (acc << (8 - accBits));
+        return Arrays.copyOf(out, pos);
     }
 
     @Override
     public byte[] decompress(byte[] byteArray) {
-        int nodesCnt = 0; //number of words that are actually in dictionary = number of Nodes in Prefix Tree
-        Node root = new Node(nodesCnt++); //create root of PrefixTree
-        Map<Long, Node> numToNode = new HashMap<>(); //map for getting Node by its number
-        numToNode.put(root.getNum(), root); //add root to map
-        ArrayList<Integer> decodedAsBits = new ArrayList<>(); //bits sequence of decoded array
-        ArrayList<Byte> decodedAsBytes = new ArrayList<>(); //bytes sequence of decoded array
-
-        long pos = 8; //starts from 8th position, because first 8 bits = number of useless bits at end
-        long bitsCnt = 8 * byteArray.length; //number of bits = 8 * number of bytes
-
-        int dontUse = byteArray[0] + 128; //number of useless bits at the end
-
-        while (pos < bitsCnt - dontUse) {
-            int numLen = (int) Math.ceil(Math.log(nodesCnt) / Math.log(2)); /// if there are k words in dictionary, we need upper(log2(k)) bits to code each word number
-            ArrayList<Integer> numAsBits = new ArrayList<>(); //current word number
-            for (int i = 0; i < numLen; i++) {
-                numAsBits.add(getBit(byteArray, pos));
-                pos++;
+        final int codeBitsLimit = byteArray[0] & ~RESET_FLAG & 0xFF;
+        if (codeBitsLimit < MIN_CODE_BITS || codeBitsLimit > MAX_CODE_BITS)
+            throw new IllegalArgumentException("Invalid LZ78 header");
+        final int capacity = 1 << codeBitsLimit;
+        final int length = (byteArray[1] & 0xFF) << 24 | (byteArray[2] & 0xFF) << 16 | (byteArray[3] & 0xFF) << 8 | byteArray[4] & 0xFF;
+        if (length < 0) throw new IllegalArgumentException("Invalid LZ78 length");
+
+        int[] prefix = new int[capacity]; //code of word without its last byte
+        byte[] suffix = new byte[capacity]; //last byte of word
+        int[] wordLength = new int[capacity];
+        for (int i = 0; i < CLEAR; i++) {
+            suffix[i] = (byte) i;
+            wordLength[i] = 1;
+        }
+
+        byte[] decoded = new byte[length];
+        int outPos = 0;
+        long buf = 0; //bits are kept left-aligned
+        int bufBits = 0;
+        int pos = 5;
+        int nodesCnt = FIRST_CODE;
+        int k = 0;
+        int prev = -1; //previous code, -1 right after reset
+        int prevStart = 0; //position of previous word in decoded
+        while (outPos < length) {
+            int bits = codeBits(k++, capacity);
+            while (bufBits <= 56) {
+                long b = pos < byteArray.length ? byteArray[pos++] & 0xFF : 0;
+                buf |= b << (56 - bufBits);
+                bufBits += 8;
             }
-            long nodeNum = bitsToInt(numAsBits); //convect bits sequence to int
-            Node curNode = numToNode.get(nodeNum); //get node by its number
-            decodedAsBits.addAll(curNode.getBits()); //add node number to decodedAtB
-            if (pos < bitsCnt - dontUse) {
-                decodedAsBits.add(getBit(byteArray, pos)); //add next bit to decodedAsBits
-                curNode.addChild(getBit(byteArray, pos), nodesCnt++); //add child with given bit to current node
-                curNode = curNode.getChild(getBit(byteArray, pos)); //get new node
-                numToNode.put(curNode.getNum(), curNode); //add this new node to map numToNode
+            int code = (int) (buf >>> (64 - bits));
+            buf <<= bits;
+            bufBits -= bits;
+
+            if (code == CLEAR) {
+                nodesCnt = FIRST_CODE;
+                k = 0;
+                prev = -1;
+                continue;
             }
-
-            //add 'full' bytes to compressedAsBytes and delete them from compressedAsBits
-            while (decodedAsBits.size() >= 8) {
-                decodedAsBytes.add(bitsToByte(decodedAsBits));
-                for (int i = 0; i < 8; i++)
-                    decodedAsBits.remove(0);
+            boolean addWord = prev != -1 && nodesCnt < capacity;
+            if (code > nodesCnt || code == nodesCnt && !addWord)
+                throw new IllegalArgumentException("Invalid LZ78 code");
+            if (code == nodesCnt) {
+                //code is not known yet, so it is previous word + first byte of previous word
+                prefix[nodesCnt] = prev;
+                suffix[nodesCnt] = decoded[prevStart];
+                wordLength[nodesCnt] = wordLength[prev] + 1;
+                nodesCnt++;
+                addWord = false;
             }
 
-            pos++;
+            //write word from its end going through prefixes
+            int wordLen = wordLength[code];
+            if (outPos + wordLen > length) throw new IllegalArgumentException("Invalid LZ78 code");
+            int c = code;
+            for (int p = outPos + wordLen - 1; p > outPos; p--) {
+                decoded[p] = suffix[c];
+                c = prefix[c];
+            }
+            decoded[outPos] = suffix[c];
+            if (addWord) {
+                //new word = previous word + first byte of current word
+                prefix[nodesCnt] = prev;
+                suffix[nodesCnt] = decoded[outPos];
+                wordLength[nodesCnt] = wordLength[prev] + 1;
+                nodesCnt++;
+            }
+            prevStart = outPos;
+            outPos += wordLen;
+            prev = code;
         }
-
-        //convert ArrayList to byte array
-        byte[] decoded = new byte[decodedAsBytes.size()];
-        for (int i = 0; i < decodedAsBytes.size(); i++)
-            decoded[i] = decodedAsBytes.get(i);
-
         return decoded;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,132 @@
+package algorithms;
+
+import java.util.Arrays;
+
+public class LZSS implements Compression {
+    private static final int MIN_MATCH = 4; //shorter matches are written as literals
+    private static final int MAX_MATCH = MIN_MATCH + 255; //match length is stored in one byte
+    private static final int MIN_WINDOW_BITS = 8;
+    private static final int MAX_WINDOW_BITS = 16; //match offset is stored in two bytes
+    private static final int HASH_BITS = 15;
+
+    private final int windowBits; //matches are searched in last 2^windowBits bytes
+    private final int maxChainLength; //number of earlier positions tried for each match
+
+    public LZSS() {
+        this(16, 32);
+    }
+
+    public LZSS(int windowBits, int maxChainLength) {
+        if (windowBits < MIN_WINDOW_BITS || windowBits > MAX_WINDOW_BITS)
+            throw new IllegalArgumentException("windowBits must be in [" + MIN_WINDOW_BITS + ", " + MAX_WINDOW_BITS + "]");
+        if (maxChainLength <= 0) throw new IllegalArgumentException("maxChainLength must be positive");
+        this.windowBits = windowBits;
+        this.maxChainLength = maxChainLength;
+    }
+
+    //hash of 4 bytes starting at pos
+    private static int hash(byte[] in, int pos) {
+        int value = (in[pos] & 0xFF) << 24 | (in[pos + 1] & 0xFF) << 16 | (in[pos + 2] & 0xFF) << 8 | in[pos + 3] & 0xFF;
+        return (value * 0x9E3779B1) >>> (32 - HASH_BITS);
+    }
+
+    //compressed: [original length] then groups of flag byte + 8 items, flag bit 1 is match [offset - 1 (2 bytes)][length - MIN_MATCH], 0 is literal byte
+    @Override
+    public byte[] compress(byte[] byteArray) {
+        final int windowSize = 1 << windowBits;
+        final int windowMask = windowSize - 1;
+        int[] head = new int[1 << HASH_BITS]; //last position + 1 with given hash, 0 is none
+        int[] prev = new int[windowSize]; //previous position + 1 with the same hash, indexed by position in window
+
+        byte[] out = new byte[4 + byteArray.length + (byteArray.length + 7) / 8];
+        out[0] = (byte) (byteArray.length >>> 24);
+        out[1] = (byte) (byteArray.length >>> 16);
+        out[2] = (byte) (byteArray.length >>> 8);
+        out[3] = (byte) byteArray.length;
+        int pos = 4;
+        int flagPos = 0, flagBit = 8; //position of current flag byte and next bit in it
+
+        int i = 0;
+        final int last = byteArray.length - MIN_MATCH; //last position where match can start
+        while (i < byteArray.length) {
+            if (flagBit == 8) {
+                flagPos = pos++;
+                out[flagPos] = 0;
+                flagBit = 0;
+            }
+
+            //walk through earlier positions with the same hash and take the longest match
+            int bestLength = 0, bestOffset = 0;
+            if (i <= last) {
+                int h = hash(byteArray, i);
+                int candidate = head[h] - 1;
+                int maxLength = Math.min(MAX_MATCH, byteArray.length - i);
+                for (int chain = 0; candidate >= 0 && i - candidate <= windowSize && chain < maxChainLength; chain++) {
+                    if (byteArray[candidate + bestLength] == byteArray[i + bestLength]) {
+                        int length = 0;
+                        while (length < maxLength && byteArray[candidate + length] == byteArray[i + length]) length++;
+                        if (length > bestLength) {
+                            bestLength = length;
+                            bestOffset = i - candidate;
+                            if (length == maxLength) break;
+                        }
+                    }
+                    int next = prev[candidate & windowMask] - 1;
+                    if (next >= candidate) break; //slot was reused by newer position
+                    candidate = next;
+                }
+            }
+
+            int step;
+            if (bestLength >= MIN_MATCH) {
+                out[flagPos] |= 1 << flagBit;
+                out[pos++] = (byte) ((bestOffset - 1) >>> 8);
+                out[pos++] = (byte) (bestOffset - 1);
+                out[pos++] = (byte) (bestLength - MIN_MATCH);
+                step = bestLength;
+            } else {
+                out[pos++] = byteArray[i];
+                step = 1;
+            }
+            flagBit++;
+
+            //every position of match is added to chains too, so later matches can start inside it
+            int end = i + step;
+            for (int limit = Math.min(end, last + 1); i < limit; i++) {
+                int h = hash(byteArray, i);
+                prev[i & windowMask] = head[h];
+                head[h] = i + 1;
+            }
+            i = end;
+        }
+        return Arrays.copyOf(out, pos);
+    }
+
+    @Override
+    public byte[] decompress(byte[] byteArray) {
+        int length = (byteArray[0] & 0xFF) << 24 | (byteArray[1] & 0xFF) << 16 | (byteArray[2] & 0xFF) << 8 | byteArray[3] & 0xFF;
+        if (length < 0) throw new IllegalArgumentException("Invalid LZSS length");
+        byte[] decoded = new byte[length];
+        int pos = 4, outPos = 0;
+        int flags = 0, flagBit = 8;
+        while (outPos < length) {
+            if (flagBit == 8) {
+                flags = byteArray[pos++];
+                flagBit = 0;
+            }
+            if ((flags & 1 << flagBit++) == 0) decoded[outPos++] = byteArray[pos++];
+            else {
+                int offset = ((byteArray[pos] & 0xFF) << 8 | byteArray[pos + 1] & 0xFF) + 1;
+                int matchLength = (byteArray[pos + 2] & 0xFF) + MIN_MATCH;
+                pos += 3;
+                if (offset > outPos || matchLength > length - outPos)
+                    throw new IllegalArgumentException("Invalid LZSS match");
+                //overlapping match repeats bytes written by itself, so it is copied byte by byte
+                if (offset >= matchLength) System.arraycopy(decoded, outPos - offset, decoded, outPos, matchLength);
+                else for (int k = 0; k < matchLength; k++) decoded[outPos + k] = decoded[outPos - offset + k];
+                outPos += matchLength;
+            }
+        }
+        return decoded;
+    }
+}
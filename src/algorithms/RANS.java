@@ -0,0 +1,151 @@
+package algorithms;
+
+import java.util.Arrays;
+
+//Range variant of asymmetric numeral systems with 4 interleaved states
+public class RANS implements Compression {
+    private static final int SCALE_BITS = 12; //frequencies are normalized to sum 2^SCALE_BITS
+    private static final int SCALE = 1 << SCALE_BITS;
+    private static final int MASK = SCALE - 1;
+    private static final int LOWER_BOUND = 1 << 23; //state is kept in [LOWER_BOUND, LOWER_BOUND << 8)
+    private static final int STATES = 4; //symbol i is coded by state i % 4, so 4 independent dependency chains run in decoder
+    private static final int HEADER = 4 + 32; //original length and bitmap of present bytes
+
+    //scale frequencies so that they sum to SCALE and every present byte keeps at least 1
+    static int[] normalize(int[] freq, int total) {
+        int[] scaled = new int[256];
+        int sum = 0, largest = 0;
+        for (int i = 0; i < 256; i++)
+            if (freq[i] > 0) {
+                scaled[i] = Math.max(1, (int) ((long) freq[i] * SCALE / total));
+                sum += scaled[i];
+                if (scaled[i] > scaled[largest]) largest = i;
+            }
+        scaled[largest] += SCALE - sum;
+        //bumping rare bytes to 1 may take more than largest byte can give, then take 1 from the largest ones until it fits
+        while (scaled[largest] < 1) {
+            int donor = 0;
+            for (int i = 0; i < 256; i++)
+                if (i != largest && scaled[i] > scaled[donor]) donor = i;
+            scaled[donor]--;
+            scaled[largest]++;
+        }
+        return scaled;
+    }
+
+    //compressed: [original length][bitmap of present bytes][frequency - 1 of each present byte (2 bytes)][4 states][renormalization bytes]
+    @Override
+    public byte[] compress(byte[] byteArray) {
+        int n = byteArray.length;
+        int[] freq = new int[256];
+        for (byte b : byteArray) freq[b & 0xFF]++;
+        int present = 0;
+        for (int f : freq) if (f > 0) present++;
+        if (n == 0) return new byte[HEADER];
+        int[] scaled = normalize(freq, n);
+        int[] start = new int[256];
+        for (int i = 1; i < 256; i++) start[i] = start[i - 1] + scaled[i - 1];
+
+        //states are written backwards from the end of buffer, so decoder reads them forwards
+        byte[] buffer = new byte[n + n / 2 + 16 + STATES * 4];
+        int pos = buffer.length;
+        int[] x = new int[STATES];
+        Arrays.fill(x, LOWER_BOUND);
+        for (int i = n - 1; i >= 0; i--) {
+            int s = byteArray[i] & 0xFF, f = scaled[s];
+            int state = x[i & (STATES - 1)];
+            long max = (long) ((LOWER_BOUND >>> SCALE_BITS) << 8) * f;
+            while (state >= max) {
+                buffer[--pos] = (byte) state;
+                state >>>= 8;
+            }
+            x[i & (STATES - 1)] = (state / f << SCALE_BITS) + state % f + start[s];
+        }
+        for (int j = STATES - 1; j >= 0; j--)
+            for (int k = 3; k >= 0; k--) buffer[--pos] = (byte) (x[j] >>> (8 * k));
+
+        byte[] compressed = new byte[HEADER + 2 * present + buffer.length - pos];
+        compressed[0] = (byte) (n >>> 24);
+        compressed[1] = (byte) (n >>> 16);
+        compressed[2] = (byte) (n >>> 8);
+        compressed[3] = (byte) n;
+        int out = HEADER;
+        for (int i = 0; i < 256; i++)
+            if (scaled[i] > 0) {
+                compressed[4 + i / 8] |= 1 << (i % 8);
+                compressed[out++] = (byte) ((scaled[i] - 1) >>> 8);
+                compressed[out++] = (byte) (scaled[i] - 1);
+            }
+        System.arraycopy(buffer, pos, compressed, out, buffer.length - pos);
+        return compressed;
+    }
+
+    @Override
+    public byte[] decompress(byte[] byteArray) {
+        int n = (byteArray[0] & 0xFF) << 24 | (byteArray[1] & 0xFF) << 16 | (byteArray[2] & 0xFF) << 8 | byteArray[3] & 0xFF;
+        if (n < 0) throw new IllegalArgumentException("Invalid rANS length");
+        byte[] decoded = new byte[n];
+        if (n == 0) return decoded;
+
+        //slot -> byte | (frequency - 1) << 8 | start << 20
+        int[] table = new int[SCALE];
+        int pos = HEADER, start = 0;
+        for (int i = 0; i < 256; i++)
+            if ((byteArray[4 + i / 8] & 1 << (i % 8)) != 0) {
+                int f = ((byteArray[pos] & 0xF) << 8 | byteArray[pos + 1] & 0xFF) + 1;
+                pos += 2;
+                if (start + f > SCALE) throw new IllegalArgumentException("Invalid rANS frequencies");
+                Arrays.fill(table, start, start + f, i | (f - 1) << 8 | start << 20);
+                start += f;
+            }
+        if (start != SCALE) throw new IllegalArgumentException("Invalid rANS frequencies");
+
+        int x0 = readState(byteArray, pos), x1 = readState(byteArray, pos + 4),
+                x2 = readState(byteArray, pos + 8), x3 = readState(byteArray, pos + 12);
+        pos += 16;
+
+        //4 symbols per iteration, each state is updated independently of others
+        int i = 0;
+        for (; i + STATES <= n; i += STATES) {
+            int e0 = table[x0 & MASK], e1 = table[x1 & MASK], e2 = table[x2 & MASK], e3 = table[x3 & MASK];
+            decoded[i] = (byte) e0;
+            decoded[i + 1] = (byte) e1;
+            decoded[i + 2] = (byte) e2;
+            decoded[i + 3] = (byte) e3;
+            x0 = advance(x0, e0);
+            x1 = advance(x1, e1);
+            x2 = advance(x2, e2);
+            x3 = advance(x3, e3);
+            //renormalization reads the shared stream in symbol order
+            while (x0 < LOWER_BOUND) x0 = x0 << 8 | byteAt(byteArray, pos++);
+            while (x1 < LOWER_BOUND) x1 = x1 << 8 | byteAt(byteArray, pos++);
+            while (x2 < LOWER_BOUND) x2 = x2 << 8 | byteAt(byteArray, pos++);
+            while (x3 < LOWER_BOUND) x3 = x3 << 8 | byteAt(byteArray, pos++);
+        }
+        int[] x = {x0, x1, x2, x3};
+        for (; i < n; i++) {
+            int e = table[x[i & (STATES - 1)] & MASK];
+            decoded[i] = (byte) e;
+            int state = advance(x[i & (STATES - 1)], e);
+            while (state < LOWER_BOUND) state = state << 8 | byteAt(byteArray, pos++);
+            x[i & (STATES - 1)] = state;
+        }
+        return decoded;
+    }
+
+    //state before coding the byte of table entry
+    private static int advance(int x, int entry) {
+        int f = (entry >>> 8 & MASK) + 1;
+        return f * (x >>> SCALE_BITS) + (x & MASK) - (entry >>> 20);
+    }
+
+    private static int readState(byte[] in, int pos) {
+        return (in[pos] & 0xFF) | (in[pos + 1] & 0xFF) << 8 | (in[pos + 2] & 0xFF) << 16 | (in[pos + 3] & 0xFF) << 24;
+    }
+
+    //damaged input may ask for more bytes than there are, which is reported instead of reading out of bounds
+    private static int byteAt(byte[] in, int pos) {
+        if (pos >= in.length) throw new IllegalArgumentException("Truncated rANS data");
+        return in[pos] & 0xFF;
+    }
+}
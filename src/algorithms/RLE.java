@@ -1,71 +1,145 @@
 package algorithms;
 
-import java.util.ArrayList;
+import java.util.Arrays;
 
 public class RLE implements Compression {
+    private static final int MAX_COUNT = 127; //longest run or literal block of one control byte
+    private static final int MIN_RUN = 2; //shorter runs are written as literals
+
+    private final boolean longRuns; //write original length and control words as varints, so runs and literal blocks are unlimited
+
+    public RLE() {
+        this(false);
+    }
+
+    public RLE(boolean longRuns) {
+        this.longRuns = longRuns;
+    }
+
     @Override
     public byte[] compress(byte[] input) {
-        ArrayList<Byte> counterList = new ArrayList<>();
-        int it = 1;
-        byte j = 1;
+        //worst case is literal byte + run of 2 repeated, which takes 4 bytes per 3 input bytes
+        byte[] output = new byte[input.length + input.length / 3 + 16];
+        int pos = longRuns ? writeVarint(output, 0, input.length) : 0;
+        int literalStart = 0, it = 0;
         while (it < input.length) {
-            if (input[it] == input[it - 1] && j < 127) {
-                j++;
-                it++;
-            } else {
-                counterList.add(j);
+            int limit = longRuns ? input.length - it : Math.min(input.length - it, MAX_COUNT);
+            int run = 1;
+            while (run < limit && input[it + run] == input[it]) run++;
+            if (run < MIN_RUN) {
                 it++;
-                j = 1;
+                continue;
             }
+            pos = writeLiterals(output, pos, input, literalStart, it);
+            if (longRuns) pos = writeVarint(output, pos, (long) (run - MIN_RUN) << 1 | 1);
+            else output[pos++] = (byte) (run + 128);
+            output[pos++] = input[it];
+            it += run;
+            literalStart = it;
         }
-        counterList.add(j);
-        ArrayList<Byte> dataList = new ArrayList<>();
-        int current = 0;
-        int k = 0;
-        while (k < counterList.size()) {
-            byte count = 0;
-            while (k < counterList.size() && counterList.get(k) == 1 && count < 127) {
-                count++;
-                k++;
+        pos = writeLiterals(output, pos, input, literalStart, input.length);
+        return Arrays.copyOf(output, pos);
+    }
+
+    @Override
+    public byte[] decompress(byte[] input) {
+        return longRuns ? decompressLongRuns(input) : decompressShortRuns(input);
+    }
+
+    //control byte c > 0 means c literal bytes follow, c <= 0 means next byte is repeated c + 128 times
+    private static byte[] decompressShortRuns(byte[] input) {
+        //first go only through control bytes to find output length
+        int length = 0;
+        for (int i = 0; i < input.length; i++)
+            if (input[i] > 0) {
+                length += input[i];
+                i += input[i];
+            } else {
+                length += runLength(input[i]);
+                i++;
             }
-            if (count != 0) {
-                dataList.add(count);
-                for (int l = 0; l < count; l++)
-                    dataList.add(input[current + l]);
-                current += count;
+        byte[] output = new byte[length];
+        int pos = 0;
+        for (int i = 0; i < input.length; i++)
+            if (input[i] > 0) {
+                int count = Math.min(input[i], input.length - i - 1);
+                System.arraycopy(input, i + 1, output, pos, count);
+                pos += input[i];
+                i += input[i];
+            } else {
+                int count = runLength(input[i++]);
+                if (i < input.length) Arrays.fill(output, pos, pos + count, input[i]);
+                pos += count;
+            }
+        return output;
+    }
+
+    private static int runLength(byte control) {
+        return control == 0 ? 0 : control + 128;
+    }
+
+    //[original length] then varint v: even v means v / 2 literal bytes follow, odd v means next byte is repeated v / 2 + 2 times
+    private static byte[] decompressLongRuns(byte[] input) {
+        long[] word = new long[1];
+        int i = readVarint(input, 0, word);
+        if (word[0] > Integer.MAX_VALUE) throw new IllegalArgumentException("Invalid RLE length");
+        byte[] output = new byte[(int) word[0]];
+        int pos = 0;
+        while (i < input.length && pos < output.length) {
+            i = readVarint(input, i, word);
+            long count = word[0] >>> 1;
+            if ((word[0] & 1) == 0) {
+                if (count > output.length - pos || count > input.length - i)
+                    throw new IllegalArgumentException("Invalid RLE literal block");
+                System.arraycopy(input, i, output, pos, (int) count);
+                i += count;
+                pos += count;
             } else {
-                dataList.add((byte) (counterList.get(k) + 128));
-                dataList.add(input[current]);
-                current += counterList.get(k++);
+                count += MIN_RUN;
+                if (count > output.length - pos || i >= input.length)
+                    throw new IllegalArgumentException("Invalid RLE run");
+                Arrays.fill(output, pos, pos + (int) count, input[i++]);
+                pos += count;
             }
         }
-        byte[] compressedArray = new byte[dataList.size()];
-        for (int i = 0; i < compressedArray.length; i++)
-            compressedArray[i] = dataList.get(i);
-        return compressedArray;
+        return output;
     }
 
-    @Override
-    public byte[] decompress(byte[] input) {
-        ArrayList<Byte> dataList = new ArrayList<>();
-        for (int i = 0; i < input.length; i++) {
-            if (input[i] > 0) {
-                byte count = input[i];
-                while (count > 0) {
-                    dataList.add(input[++i]);
-                    count--;
-                }
-            } else if (input[i] <= 0) {
-                byte count = (byte) (input[i++] - 128);
-                while (count >= 1) {
-                    dataList.add(input[i]);
-                    count--;
-                }
+    //write input[from, to) as literal blocks
+    private int writeLiterals(byte[] output, int pos, byte[] input, int from, int to) {
+        while (from < to) {
+            int count = longRuns ? to - from : Math.min(to - from, MAX_COUNT);
+            if (longRuns) pos = writeVarint(output, pos, (long) count << 1);
+            else output[pos++] = (byte) count;
+            System.arraycopy(input, from, output, pos, count);
+            pos += count;
+            from += count;
+        }
+        return pos;
+    }
+
+    //write value by 7 bits, lowest first, high bit set if more bytes follow
+    private static int writeVarint(byte[] output, int pos, long value) {
+        while ((value & ~0x7FL) != 0) {
+            output[pos++] = (byte) (value | 0x80);
+            value >>>= 7;
+        }
+        output[pos++] = (byte) value;
+        return pos;
+    }
+
+    //read varint into value[0], returns position after it
+    private static int readVarint(byte[] input, int pos, long[] value) {
+        long result = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            if (pos >= input.length) throw new IllegalArgumentException("Truncated RLE varint");
+            byte b = input[pos++];
+            result |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                value[0] = result;
+                return pos;
             }
         }
-        byte[] decompressedArray = new byte[dataList.size()];
-        for (int i = 0; i < dataList.size(); i++)
-            decompressedArray[i] = dataList.get(i);
-        return decompressedArray;
+        throw new IllegalArgumentException("Invalid RLE varint");
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,299 @@
+package algorithms;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.LongAdder;
+
+//Systematic Reed-Solomon code over GF(2^8): every codeword is up to 255 - parityBytes data bytes followed by parityBytes check bytes,
+//up to parityBytes / 2 damaged bytes of each codeword are corrected
+public class ReedSolomon implements Encoding {
+    private static final int FIELD_SIZE = 255; //number of nonzero elements, also the longest codeword
+    private static final int PRIMITIVE = 0x11D; //x^8 + x^4 + x^3 + x^2 + 1, alpha = x generates all nonzero elements
+    private static final int LENGTH_BYTES = 4; //original length is sent in front of data, protected by the first codeword
+    private static final int GROUP_WORDS = 4096; //codewords of one parallel task, about 1 MB
+
+    private static final int[] EXP = new int[2 * FIELD_SIZE]; //alpha^i, doubled so sum of two logs needs no modulo
+    private static final int[] LOG = new int[256]; //log of nonzero element, LOG[0] is not used
+
+    static {
+        for (int i = 0, x = 1; i < FIELD_SIZE; i++) {
+            EXP[i] = EXP[i + FIELD_SIZE] = x;
+            LOG[x] = i;
+            x <<= 1;
+            if (x > 0xFF) x ^= PRIMITIVE;
+        }
+    }
+
+    private final int parityBytes;
+    private final int dataBytes; //data bytes of full codeword
+    private final int[] generatorLog; //logs of generator coefficients of x^(parityBytes - 1) .. x^0, leading 1 is left out
+    private final ForkJoinPool pool;
+    private final LongAdder corrections = new LongAdder(); //corrected bits, words are decoded by several tasks at once
+
+    public ReedSolomon() {
+        this(32);
+    }
+
+    //RS(255, 255 - parityBytes), RS(255, 223) by default
+    public ReedSolomon(int parityBytes) {
+        this(parityBytes, ForkJoinPool.commonPool());
+    }
+
+    public ReedSolomon(int parityBytes, ForkJoinPool pool) {
+        if (parityBytes < 2 || parityBytes > FIELD_SIZE - LENGTH_BYTES - 1)
+            throw new IllegalArgumentException("parityBytes must be in [2, " + (FIELD_SIZE - LENGTH_BYTES - 1) + "]");
+        this.parityBytes = parityBytes;
+        this.dataBytes = FIELD_SIZE - parityBytes;
+        this.pool = pool;
+
+        //generator (x - alpha^0)(x - alpha^1)...(x - alpha^(parityBytes - 1)), coefficients from the highest power
+        int[] g = new int[parityBytes + 1];
+        g[0] = 1;
+        for (int i = 0; i < parityBytes; i++)
+            for (int j = i + 1; j > 0; j--) g[j] ^= mul(g[j - 1], EXP[i]);
+        generatorLog = new int[parityBytes];
+        for (int j = 0; j < parityBytes; j++) generatorLog[j] = g[j + 1] == 0 ? -1 : LOG[g[j + 1]];
+    }
+
+    private static int mul(int a, int b) {
+        return a == 0 || b == 0 ? 0 : EXP[LOG[a] + LOG[b]];
+    }
+
+    private static int div(int a, int b) {
+        return a == 0 ? 0 : EXP[LOG[a] + FIELD_SIZE - LOG[b]];
+    }
+
+    //value of polynomial with coefficients from the lowest power at x
+    private static int evaluate(int[] poly, int degree, int x) {
+        int value = 0;
+        for (int i = degree; i >= 0; i--) value = mul(value, x) ^ poly[i];
+        return value;
+    }
+
+    //encoded: [length][input] cut into codewords of dataBytes + parityBytes, the last one is shortened
+    @Override
+    public byte[] encode(byte[] input) {
+        byte[] result = new byte[encodedLength(input.length)];
+        encode(input, 0, input.length, result);
+        return result;
+    }
+
+    @Override
+    public byte[] decode(byte[] input) {
+        byte[] fixed = input.clone();
+        int length = correct(fixed, input.length);
+        byte[] result = new byte[length];
+        copyData(fixed, result, length);
+        return result;
+    }
+
+    //codewords are built in pooled buffer
+    @Override
+    public ByteBuffer encode(ByteBuffer input, BufferPool buffers) {
+        if (!input.hasArray()) return Encoding.super.encode(input, buffers);
+        ByteBuffer result = buffers.acquire(encodedLength(input.remaining()));
+        encode(input.array(), input.arrayOffset() + input.position(), input.remaining(), result.array());
+        return result;
+    }
+
+    //damaged bytes are fixed in input itself, so only data bytes are copied out
+    @Override
+    public ByteBuffer decode(ByteBuffer input, BufferPool buffers) {
+        if (!input.hasArray() || input.arrayOffset() + input.position() != 0) return Encoding.super.decode(input, buffers);
+        int length = correct(input.array(), input.limit());
+        ByteBuffer result = buffers.acquire(length);
+        copyData(input.array(), result.array(), length);
+        return result;
+    }
+
+    private int encodedLength(int inputLength) {
+        long data = (long) LENGTH_BYTES + inputLength;
+        long words = (data + dataBytes - 1) / dataBytes;
+        return Math.toIntExact(data + words * parityBytes);
+    }
+
+    //data bytes are laid out first, so codewords are then filled in place by independent tasks
+    private void encode(byte[] input, int offset, int inputLength, byte[] result) {
+        int length = encodedLength(inputLength);
+        int words = (length + FIELD_SIZE - 1) / FIELD_SIZE;
+        for (int k = 0; k < LENGTH_BYTES; k++) result[k] = (byte) (inputLength >>> (8 * (LENGTH_BYTES - 1 - k)));
+        int copied = 0;
+        for (int w = 0, pos = 0; w < words; w++, pos += FIELD_SIZE) {
+            int from = w == 0 ? LENGTH_BYTES : 0;
+            int count = Math.min(dataBytes - from, inputLength - copied);
+            System.arraycopy(input, offset + copied, result, pos + from, count);
+            copied += count;
+        }
+        forEachGroup(result, length, this::encodeWord);
+    }
+
+    //fix codewords in first length bytes of encoded and return original length written in front of data
+    private int correct(byte[] encoded, int length) {
+        int words = (length + FIELD_SIZE - 1) / FIELD_SIZE;
+        int lastLength = length - (words - 1) * FIELD_SIZE;
+        if (words == 0 || lastLength <= parityBytes) throw new IllegalArgumentException("Invalid Reed-Solomon length");
+        if (length - words * parityBytes < LENGTH_BYTES) throw new IllegalArgumentException("Reed-Solomon input is too short");
+        forEachGroup(encoded, length, this::decodeWord);
+        int dataLength = 0;
+        for (int k = 0; k < LENGTH_BYTES; k++) dataLength = dataLength << 8 | encoded[k] & 0xFF;
+        if (dataLength < 0 || dataLength > length - words * parityBytes - LENGTH_BYTES)
+            throw new IllegalArgumentException("Invalid Reed-Solomon length");
+        return dataLength;
+    }
+
+    //copy length original bytes from data parts of codewords, skipping length in front of them
+    private void copyData(byte[] encoded, byte[] result, int length) {
+        for (int copied = 0, w = 0; copied < length; w++) {
+            int from = w == 0 ? LENGTH_BYTES : 0;
+            int count = Math.min(dataBytes - from, length - copied);
+            System.arraycopy(encoded, w * FIELD_SIZE + from, result, copied, count);
+            copied += count;
+        }
+    }
+
+    private interface WordOperation {
+        void apply(byte[] buffer, int pos, int length);
+    }
+
+    //apply operation to every codeword in first length bytes of buffer, groups of codewords run in parallel when there are several of them
+    private void forEachGroup(byte[] buffer, int length, WordOperation operation) {
+        int words = (length + FIELD_SIZE - 1) / FIELD_SIZE;
+        int groups = (words + GROUP_WORDS - 1) / GROUP_WORDS;
+        List<ForkJoinTask<?>> tasks = new ArrayList<>(groups);
+        for (int g = 0; g < groups; g++) {
+            int first = g * GROUP_WORDS, last = Math.min(words, first + GROUP_WORDS);
+            Runnable group = () -> {
+                for (int w = first; w < last; w++) {
+                    int pos = w * FIELD_SIZE;
+                    operation.apply(buffer, pos, Math.min(FIELD_SIZE, length - pos));
+                }
+            };
+            if (groups == 1) group.run();
+            else tasks.add(pool.submit(group));
+        }
+        for (ForkJoinTask<?> task : tasks) task.join();
+    }
+
+    //remainder of data bytes [pos, end) * x^parityBytes divided by generator, computed by shift register
+    private int[] remainder(byte[] word, int pos, int end) {
+        int[] remainder = new int[parityBytes];
+        for (int i = pos; i < end; i++) {
+            int feedback = (word[i] & 0xFF) ^ remainder[0];
+            System.arraycopy(remainder, 1, remainder, 0, parityBytes - 1);
+            remainder[parityBytes - 1] = 0;
+            if (feedback != 0) {
+                int feedbackLog = LOG[feedback];
+                for (int j = 0; j < parityBytes; j++)
+                    if (generatorLog[j] >= 0) remainder[j] ^= EXP[feedbackLog + generatorLog[j]];
+            }
+        }
+        return remainder;
+    }
+
+    //check bytes are the remainder, so whole codeword is divisible by generator
+    private void encodeWord(byte[] word, int pos, int length) {
+        int end = pos + length - parityBytes;
+        int[] remainder = remainder(word, pos, end);
+        for (int j = 0; j < parityBytes; j++) word[end + j] = (byte) remainder[j];
+    }
+
+    //byte i of word is coefficient of x^(length - 1 - i); damaged bytes are fixed in place, words with too many errors are left as is
+    private void decodeWord(byte[] word, int pos, int length) {
+        //received word modulo generator is recomputed check bytes xor received ones, zero for valid codeword
+        int end = pos + length - parityBytes;
+        int[] remainder = remainder(word, pos, end);
+        boolean damaged = false;
+        for (int j = 0; j < parityBytes; j++) {
+            remainder[j] ^= word[end + j] & 0xFF;
+            damaged |= remainder[j] != 0;
+        }
+        if (!damaged) return;
+
+        //generator has roots alpha^i, so syndrome i (received word at alpha^i) is the remainder at alpha^i
+        int[] syndromes = new int[parityBytes];
+        for (int i = 0; i < parityBytes; i++) {
+            int s = 0;
+            for (int j = 0; j < parityBytes; j++) {
+                if (s != 0) s = EXP[LOG[s] + i];
+                s ^= remainder[j];
+            }
+            syndromes[i] = s;
+        }
+
+        //Berlekamp-Massey: shortest error locator lambda(x) = product of (1 - X x) over error locations X
+        int[] lambda = new int[parityBytes + 1], previous = new int[parityBytes + 1], tmp = new int[parityBytes + 1];
+        lambda[0] = previous[0] = 1;
+        int errors = 0, shift = 1, previousDiscrepancy = 1;
+        for (int r = 0; r < parityBytes; r++) {
+            int discrepancy = syndromes[r];
+            for (int i = 1; i <= errors; i++) discrepancy ^= mul(lambda[i], syndromes[r - i]);
+            if (discrepancy == 0) {
+                shift++;
+                continue;
+            }
+            int coefficient = div(discrepancy, previousDiscrepancy);
+            boolean grow = 2 * errors <= r;
+            if (grow) System.arraycopy(lambda, 0, tmp, 0, parityBytes + 1);
+            for (int i = 0; i + shift <= parityBytes; i++) lambda[i + shift] ^= mul(coefficient, previous[i]);
+            if (grow) {
+                errors = r + 1 - errors;
+                int[] swap = previous;
+                previous = tmp;
+                tmp = swap;
+                previousDiscrepancy = discrepancy;
+                shift = 1;
+            } else shift++;
+        }
+        if (errors > parityBytes / 2) {
+            uncorrectable();
+            return;
+        }
+
+        //error evaluator omega(x) = syndromes(x) * lambda(x) mod x^parityBytes
+        int[] omega = new int[parityBytes];
+        for (int i = 0; i < parityBytes; i++)
+            for (int j = 0; j <= Math.min(i, errors); j++) omega[i] ^= mul(syndromes[i - j], lambda[j]);
+
+        //Chien search finds roots X^-1 of lambda, Forney gives error value X * omega(X^-1) / lambda'(X^-1)
+        int[] positions = new int[errors], values = new int[errors];
+        int found = 0;
+        for (int k = 0; k < length && found < errors; k++) {
+            int power = length - 1 - k;
+            int inverse = EXP[(FIELD_SIZE - power) % FIELD_SIZE];
+            if (evaluate(lambda, errors, inverse) != 0) continue;
+            int derivative = 0;
+            for (int i = errors - (errors % 2 == 0 ? 1 : 0); i >= 1; i -= 2)
+                derivative = mul(derivative, mul(inverse, inverse)) ^ lambda[i];
+            if (derivative == 0) {
+                uncorrectable();
+                return;
+            }
+            positions[found] = pos + k;
+            values[found++] = mul(EXP[power], div(evaluate(omega, parityBytes - 1, inverse), derivative));
+        }
+        //fewer roots inside the word than degree of lambda means more errors than the code can correct
+        if (found != errors) {
+            uncorrectable();
+            return;
+        }
+        int bits = 0;
+        for (int i = 0; i < errors; i++) {
+            word[positions[i]] ^= values[i];
+            bits += Integer.bitCount(values[i]);
+        }
+        corrections.add(bits);
+    }
+
+    //word with too many errors has at least parityBytes / 2 + 1 damaged bytes, each of them has at least one damaged bit
+    private void uncorrectable() {
+        corrections.add(parityBytes / 2 + 1);
+    }
+
+    @Override
+    public long corrections() {
+        return corrections.sum();
+    }
+}
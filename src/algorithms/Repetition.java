@@ -1,14 +1,87 @@
 package algorithms;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
 public class Repetition implements Encoding {
+    private static final int MAX_WORD_COUNT = 8; //encoded byte takes count bytes, which fit one long up to this count
+
     private int count;
+    private byte[] expanded; //count encoded bytes of each byte value, null if count is bigger than MAX_WORD_COUNT
+    private long corrections; //minority bits outvoted by decode
 
     public Repetition(int count) {
         this.count = count;
+        if (count <= MAX_WORD_COUNT) buildExpandedTable();
+    }
+
+    //encode every byte value once with bitwise loop
+    private void buildExpandedTable() {
+        byte[] values = new byte[256];
+        for (int i = 0; i < 256; i++) values[i] = (byte) i;
+        expanded = encodeBitwise(values);
     }
 
     @Override
     public byte[] encode(byte[] input) {
+        if (expanded == null) return encodeBitwise(input);
+        byte[] result = new byte[input.length * count];
+        encodeExpanded(input, 0, input.length, result, 0);
+        return result;
+    }
+
+    @Override
+    public byte[] decode(byte[] input) {
+        if (expanded == null) return decodeBitwise(input);
+        byte[] result = new byte[input.length / count];
+        decodeExpanded(input, 0, result, 0, result.length);
+        return result;
+    }
+
+    //encoded bytes are written straight into pooled buffer, bitwise fallback goes through arrays
+    @Override
+    public ByteBuffer encode(ByteBuffer input, BufferPool pool) {
+        if (expanded == null || !input.hasArray()) return Encoding.super.encode(input, pool);
+        ByteBuffer result = pool.acquire(Math.multiplyExact(input.remaining(), count));
+        encodeExpanded(input.array(), input.arrayOffset() + input.position(), input.remaining(), result.array(), 0);
+        return result;
+    }
+
+    @Override
+    public ByteBuffer decode(ByteBuffer input, BufferPool pool) {
+        if (expanded == null || !input.hasArray()) return Encoding.super.decode(input, pool);
+        ByteBuffer result = pool.acquire(input.remaining() / count);
+        decodeExpanded(input.array(), input.arrayOffset() + input.position(), result.array(), 0, result.remaining());
+        return result;
+    }
+
+    //each byte is replaced by its pre-expanded pattern
+    private void encodeExpanded(byte[] input, int from, int length, byte[] result, int pos) {
+        for (int i = from; i < from + length; i++) {
+            int start = (input[i] & 0xFF) * count;
+            for (int k = 0; k < count; k++) result[pos++] = expanded[start + k];
+        }
+    }
+
+    private void decodeExpanded(byte[] input, int pos, byte[] result, int from, int length) {
+        final int bits = 8 * count, mask = (1 << count) - 1, half = count / 2;
+        for (int i = from; i < from + length; i++) {
+            //all count bytes of encoded byte in one word, then majority of each count-bit group is decided by its popcount
+            long word = 0;
+            for (int k = 0; k < count; k++) word = word << 8 | input[pos++] & 0xFF;
+            int value = 0;
+            for (int j = 1; j <= 8; j++) {
+                int ones = Long.bitCount(word >>> (bits - j * count) & mask);
+                value = value << 1 | (ones > half ? 1 : 0);
+                corrections += ones > half ? count - ones : ones;
+            }
+            result[i] = (byte) value;
+        }
+    }
+
+    private byte[] encodeBitwise(byte[] input) {
         //creating resulting array
         byte[] result = new byte[input.length * count];
         //loop for each byte of input
@@ -21,8 +94,7 @@ public class Repetition implements Encoding {
         return result;
     }
 
-    @Override
-    public byte[] decode(byte[] input) {
+    private byte[] decodeBitwise(byte[] input) {
         //creating resulting array
         byte[] result = new byte[input.length / count];
         //loop for each byte of input
@@ -38,7 +110,26 @@ public class Repetition implements Encoding {
                 //set result's current bit to 1 when (sum of bits in 1-bit encoded block)>repetition/2
                 if (temp > count / 2)
                     result[i] += 1 << (7 - j);
+                //bits which lost the vote were damaged
+                corrections += temp > count / 2 ? count - temp : temp;
             }
         return result;
     }
+
+    @Override
+    public long corrections() {
+        return corrections;
+    }
+
+    //each byte is encoded on its own, so stream is encoded in blocks without framing
+    @Override
+    public void encode(InputStream in, OutputStream out) throws IOException {
+        BlockStreams.transform(in, out, BlockStreams.BLOCK_SIZE, this::encode);
+    }
+
+    //blocks are multiples of count, so each of them is decoded on its own
+    @Override
+    public void decode(InputStream in, OutputStream out) throws IOException {
+        BlockStreams.transform(in, out, BlockStreams.BLOCK_SIZE * count, this::decode);
+    }
 }
@@ -0,0 +1,27 @@
+package algorithms;
+
+import java.nio.ByteBuffer;
+
+//Passthrough for payloads which do not get smaller with any compression
+public class Stored implements Compression {
+    @Override
+    public byte[] compress(byte[] byteArray) {
+        return byteArray;
+    }
+
+    @Override
+    public byte[] decompress(byte[] byteArray) {
+        return byteArray;
+    }
+
+    //nothing is changed, so the same buffer is passed on without copying
+    @Override
+    public ByteBuffer compress(ByteBuffer input, BufferPool pool) {
+        return input;
+    }
+
+    @Override
+    public ByteBuffer decompress(ByteBuffer input, BufferPool pool) {
+        return input;
+    }
+}
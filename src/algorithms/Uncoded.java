@@ -0,0 +1,27 @@
+package algorithms;
+
+import java.nio.ByteBuffer;
+
+//Passthrough for channels which are clean enough to send payload without any redundancy
+public class Uncoded implements Encoding {
+    @Override
+    public byte[] encode(byte[] byteArray) {
+        return byteArray;
+    }
+
+    @Override
+    public byte[] decode(byte[] byteArray) {
+        return byteArray;
+    }
+
+    //nothing is changed, so the same buffer is passed on without copying
+    @Override
+    public ByteBuffer encode(ByteBuffer input, BufferPool pool) {
+        return input;
+    }
+
+    @Override
+    public ByteBuffer decode(ByteBuffer input, BufferPool pool) {
+        return input;
+    }
+}
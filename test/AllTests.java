@@ -0,0 +1,50 @@
+import algorithms.BWTTest;
+import algorithms.BlockCompressionTest;
+import algorithms.Check;
+import algorithms.CheckedBlocksTest;
+import algorithms.CodecHeaderTest;
+import algorithms.CodecPipelineTest;
+import algorithms.CompressionSelectorTest;
+import algorithms.EncodingSelectorTest;
+import algorithms.HammingTest;
+import algorithms.HuffmanModelTest;
+import algorithms.HuffmanTest;
+import algorithms.InterleaverTest;
+import algorithms.LZ78Test;
+import algorithms.LZSSTest;
+import algorithms.RANSTest;
+import algorithms.RLETest;
+import algorithms.ReedSolomonTest;
+import algorithms.RepetitionTest;
+import algorithms.StreamTest;
+
+//Runs every test program, see README for how to build and run it
+public class AllTests {
+    public static void main(String[] args) {
+        HuffmanTest.run();
+        LZ78Test.run();
+        RLETest.run();
+        StreamTest.run();
+        BlockCompressionTest.run();
+        CompressionSelectorTest.run();
+        LZSSTest.run();
+        HuffmanModelTest.run();
+        RANSTest.run();
+        BWTTest.run();
+        RepetitionTest.run();
+        HammingTest.run();
+        InterleaverTest.run();
+        ReedSolomonTest.run();
+        EncodingSelectorTest.run();
+        CheckedBlocksTest.run();
+        CodecPipelineTest.run();
+        CodecHeaderTest.run();
+        FrameTest.run();
+        RoomServerTest.run();
+        SendQueueTest.run();
+        OrderedStageTest.run();
+        ChannelModelTest.run();
+        FileTransferTest.run();
+        Check.report();
+    }
+}
@@ -0,0 +1,98 @@
+import algorithms.Check;
+
+import java.util.Arrays;
+import java.util.Random;
+
+public class ChannelModelTest {
+    //positions of bits which differ, counted from the highest bit of first byte
+    private static long[] flipped(byte[] original, byte[] damaged) {
+        long[] positions = new long[0];
+        int count = 0;
+        for (int i = 0; i < original.length; i++)
+            for (int bit = 0; bit < 8; bit++)
+                if (((original[i] ^ damaged[i]) & 0x80 >>> bit) != 0) {
+                    if (count == positions.length) positions = Arrays.copyOf(positions, Math.max(16, 2 * count));
+                    positions[count++] = 8L * i + bit;
+                }
+        return Arrays.copyOf(positions, count);
+    }
+
+    //share of damaged bits which have another damaged bit within distance after them
+    private static double clustered(long[] positions, long distance) {
+        int close = 0;
+        for (int i = 0; i + 1 < positions.length; i++) if (positions[i + 1] - positions[i] <= distance) close++;
+        return positions.length < 2 ? 0 : (double) close / (positions.length - 1);
+    }
+
+    //count of events with probability p out of n is within 5 standard deviations of its mean
+    private static void binomial(long count, long n, double p, String what) {
+        double mean = n * p, deviation = Math.sqrt(n * p * (1 - p));
+        Check.isTrue(Math.abs(count - mean) <= 5 * deviation, what + ": " + count + " of " + n + " with probability " + p);
+    }
+
+    public static void run() {
+        Check.test("channel model parse", () -> {
+            Check.isTrue(ChannelModel.parse(null) == null && ChannelModel.parse("off") == null, "channel model off");
+            Check.isTrue(ChannelModel.parse("bsc:0.001") instanceof BinarySymmetricChannel, "bsc channel model");
+            Check.isTrue(ChannelModel.parse("ge:0:0.5:1e-4:0.01") instanceof GilbertElliottChannel, "ge channel model");
+            Check.isTrue(ChannelModel.parse("erasure:1") instanceof ErasureChannel, "erasure channel model");
+            for (String spec : new String[]{"", "on", "bsc", "bsc:", "bsc:x", "bsc:1.5", "bsc:-0.1", "bsc:NaN", "bsc:0.1:0.2",
+                    "ge:0.1:0.2:0.3", "ge:0:0.5:2:0.1", "erasure", "erasure:0.1:0.1", "noise:0.1"})
+                Check.fails(IllegalArgumentException.class, () -> ChannelModel.parse(spec), "channel model \"" + spec + "\"");
+        });
+
+        Check.test("binary symmetric channel", () -> {
+            for (double p : new double[]{1e-5, 1e-3, 0.1}) {
+                byte[] data = Check.random(1 << 20, 71), damaged = data.clone();
+                long flips = new BinarySymmetricChannel(p, new Random(72)).apply(damaged);
+                Check.equal(flipped(data, damaged).length, flips, "flips reported by bsc " + p);
+                binomial(flips, 8L * data.length, p, "flips of bsc");
+            }
+            byte[] data = Check.random(1000, 73), damaged = data.clone();
+            Check.equal(0, new BinarySymmetricChannel(0, new Random(74)).apply(damaged), "flips of clean bsc");
+            Check.equal(data, damaged, "data of clean bsc");
+            Check.equal(8000, new BinarySymmetricChannel(1, new Random(75)).apply(damaged), "flips of inverting bsc");
+            for (int i = 0; i < data.length; i++) data[i] = (byte) ~data[i];
+            Check.equal(data, damaged, "data of inverting bsc");
+        });
+
+        Check.test("gilbert-elliott channel bursts", () -> {
+            //errors only in bad state, about one percent of bits in bursts of about 100 bits
+            byte[] data = Check.random(1 << 20, 76), damaged = data.clone();
+            GilbertElliottChannel channel = new GilbertElliottChannel(0, 0.5, 1e-4, 0.01, new Random(77));
+            long flips = 0;
+            for (int pos = 0; pos < damaged.length; pos += 4096) {
+                //state carries over from one message to the next
+                byte[] message = Arrays.copyOfRange(damaged, pos, pos + 4096);
+                flips += channel.apply(message);
+                System.arraycopy(message, 0, damaged, pos, message.length);
+            }
+            long[] positions = flipped(data, damaged);
+            Check.equal(positions.length, flips, "flips reported by gilbert-elliott");
+            double rate = (double) flips / (8L * data.length);
+            Check.isTrue(rate > 0.002 && rate < 0.01, "error rate " + rate + " of gilbert-elliott");
+            byte[] uniform = data.clone();
+            new BinarySymmetricChannel(rate, new Random(78)).apply(uniform);
+            double bursty = clustered(positions, 50), independent = clustered(flipped(data, uniform), 50);
+            Check.isTrue(bursty > 0.9, "share " + bursty + " of gilbert-elliott errors close to the next one");
+            Check.isTrue(independent < 0.5, "share " + independent + " of bsc errors close to the next one at the same rate");
+        });
+
+        Check.test("erasure channel", () -> {
+            for (double p : new double[]{0.01, 0.1, 0.5}) {
+                byte[] data = new byte[100_000];
+                Arrays.fill(data, (byte) 0xFF);
+                long erased = new ErasureChannel(p, new Random(79)).apply(data);
+                long zeros = 0;
+                for (byte b : data) if (b == 0) zeros++;
+                Check.equal(zeros, erased, "erasures reported by erasure channel " + p);
+                binomial(erased, data.length, p, "erasures of erasure channel");
+            }
+        });
+    }
+
+    public static void main(String[] args) {
+        run();
+        Check.report();
+    }
+}
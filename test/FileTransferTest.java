@@ -0,0 +1,164 @@
+import algorithms.Check;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+public class FileTransferTest {
+    private interface IOAction {
+        void run() throws IOException;
+    }
+
+    private static Runnable io(IOAction action) {
+        return () -> {
+            try {
+                action.run();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        };
+    }
+
+    //chunks file sender gives to connection, in order they were sent
+    private static List<Message> send(Path file) throws IOException {
+        List<Message> chunks = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch finished = new CountDownLatch(1);
+        FileSender sender = new FileSender(new FileSender.ChunkSink() {
+            @Override
+            public Message encode(FileTransfer transfer, long offset, byte[] chunk) {
+                Message message = new Message("bin", chunk);
+                message.setChunk(transfer.getId(), offset, transfer.getSize());
+                return message;
+            }
+
+            @Override
+            public void send(FileTransfer transfer, Message chunk) {
+                chunks.add(chunk);
+            }
+        }, transfer -> {
+            if (transfer.isComplete() || transfer.isCancelled()) finished.countDown();
+        });
+        FileTransfer transfer = sender.send(file, "bin");
+        try {
+            Check.isTrue(finished.await(30, TimeUnit.SECONDS) && transfer.isComplete(), "file sender finished");
+        } catch (InterruptedException e) {
+            throw new IOException(e);
+        }
+        return chunks;
+    }
+
+    private static long files(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.count();
+        }
+    }
+
+    private static void delete(Path directory) throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path path : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) Files.delete(path);
+        }
+    }
+
+    public static void run() {
+        Check.test("file transfer with shuffled and repeated chunks", io(() -> {
+            Path directory = Files.createTempDirectory("chatfx-test");
+            try {
+                byte[] data = Check.random(5 * FileSender.CHUNK_SIZE + 123, 81);
+                Path file = directory.resolve("sent.bin");
+                Files.write(file, data);
+                List<Message> chunks = send(file);
+                Check.equal(6, chunks.size(), "chunks of file");
+                for (int i = 0; i < chunks.size(); i++)
+                    Check.equal((long) i * FileSender.CHUNK_SIZE, chunks.get(i).getOffset(), "offset of chunk " + i + " in order it was read");
+
+                //every chunk twice in random order, the ones after completion included
+                List<Message> arriving = new ArrayList<>(chunks);
+                arriving.addAll(chunks);
+                Collections.shuffle(arriving, new Random(82));
+                FileReceiver receiver = new FileReceiver(directory);
+                FileTransfer received = null;
+                int completions = 0;
+                for (Message chunk : arriving) {
+                    FileTransfer transfer = receiver.write(chunk, chunk.getData());
+                    if (transfer != null) {
+                        received = transfer;
+                        Check.isTrue(transfer.progress() <= 1, "progress " + transfer.progress() + " with repeated chunks");
+                        if (transfer.isComplete()) completions++;
+                    }
+                }
+                Check.equal(1, completions, "completions of transfer");
+                Check.equal(data, Files.readAllBytes(received.getPath()), "received file");
+                Check.equal(2, files(directory), "files after transfer");
+
+                //room members choose transfer ids on their own, same id of another sender is another file
+                for (Message chunk : chunks) {
+                    chunk.setSender(7);
+                    receiver.write(chunk, chunk.getData());
+                }
+                Check.equal(3, files(directory), "files after transfer of another sender");
+            } finally {
+                delete(directory);
+            }
+        }));
+
+        Check.test("file transfer cancel", io(() -> {
+            Path directory = Files.createTempDirectory("chatfx-test");
+            try {
+                Path file = directory.resolve("sent.bin");
+                Files.write(file, Check.random(3 * FileSender.CHUNK_SIZE, 83));
+                List<Message> chunks = send(file);
+                FileReceiver receiver = new FileReceiver(directory);
+                FileTransfer transfer = receiver.write(chunks.get(1), chunks.get(1).getData());
+                Check.isTrue(transfer != null && !transfer.isComplete(), "first chunk to arrive");
+                FileTransfer cancelled = receiver.cancel(0, transfer.getId());
+                Check.isTrue(cancelled == transfer && transfer.isCancelled(), "cancelled transfer");
+                Check.isTrue(!Files.exists(transfer.getPath()), "partly written file is deleted");
+                Check.isTrue(receiver.cancel(0, transfer.getId()) == null, "transfer cancelled again");
+                //chunks which were on their way do not start the file again
+                for (Message chunk : chunks) Check.isTrue(receiver.write(chunk, chunk.getData()) == null, "chunk after cancel");
+                Check.equal(1, files(directory), "files after cancel");
+
+                //transfer cancelled before any of its chunks came
+                Check.isTrue(receiver.cancel(0, 12345) == null, "cancel of unknown transfer");
+                Message early = new Message("bin", new byte[10]);
+                early.setChunk(12345, 0, 10);
+                Check.isTrue(receiver.write(early, early.getData()) == null, "chunk of transfer cancelled before it came");
+                Check.equal(1, files(directory), "files after chunk of cancelled transfer");
+            } finally {
+                delete(directory);
+            }
+        }));
+
+        Check.test("file transfer invalid chunk", io(() -> {
+            Path directory = Files.createTempDirectory("chatfx-test");
+            try {
+                FileReceiver receiver = new FileReceiver(directory);
+                Message past = new Message("bin", new byte[10]);
+                past.setChunk(1, 0, 5);
+                Check.fails(UncheckedIOException.class, io(() -> receiver.write(past, past.getData())), "chunk past end of file");
+                Message misplaced = new Message("bin", new byte[10]);
+                misplaced.setChunk(2, 3, 100);
+                Check.fails(UncheckedIOException.class, io(() -> receiver.write(misplaced, misplaced.getData())), "chunk between chunk offsets");
+                receiver.cancel(0, 1);
+                receiver.cancel(0, 2);
+                Check.equal(0, files(directory), "files of invalid chunks after cancel");
+            } finally {
+                delete(directory);
+            }
+        }));
+    }
+
+    public static void main(String[] args) {
+        run();
+        Check.report();
+    }
+}
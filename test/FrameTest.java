@@ -0,0 +1,130 @@
+import algorithms.Check;
+import algorithms.CodecHeader;
+import algorithms.CompressionType;
+import algorithms.EncodingType;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.Objects;
+
+public class FrameTest {
+    private static final int[] INTS = {0, 1, 127, 128, 16383, 16384, (1 << 21) - 1, 1 << 21, (1 << 28) - 1, 1 << 28, Integer.MAX_VALUE, -1, Integer.MIN_VALUE};
+    private static final long[] LONGS = {0, 127, 128, 1L << 35, (1L << 56) - 1, 1L << 56, Long.MAX_VALUE, -1, Long.MIN_VALUE};
+
+    private interface IOAction {
+        void run() throws IOException;
+    }
+
+    //checks take Runnable, IOException goes through them wrapped
+    private static Runnable io(IOAction action) {
+        return () -> {
+            try {
+                action.run();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        };
+    }
+
+    private static DataInputStream in(byte[] bytes) {
+        return new DataInputStream(new ByteArrayInputStream(bytes));
+    }
+
+    public static void run() {
+        Check.test("varint boundaries", io(() -> {
+            for (int value : INTS) {
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                Frame.writeVarint(new DataOutputStream(bytes), value);
+                int expected = value < 0 ? 5 : 1 + (31 - Integer.numberOfLeadingZeros(value | 1)) / 7;
+                Check.equal(expected, bytes.size(), "varint length of " + value);
+                Check.equal(bytes.toByteArray(), Frame.varint(value), "varint array of " + value);
+                Check.equal(value, Frame.readVarint(in(bytes.toByteArray())), "varint " + value);
+            }
+            for (long value : LONGS) {
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                Frame.writeVarlong(new DataOutputStream(bytes), value);
+                int expected = value < 0 ? 10 : 1 + (63 - Long.numberOfLeadingZeros(value | 1)) / 7;
+                Check.equal(expected, bytes.size(), "varlong length of " + value);
+                Check.equal(value, Frame.readVarlong(in(bytes.toByteArray())), "varlong " + value);
+            }
+        }));
+
+        Check.test("varint invalid input", () -> {
+            byte[] endless = new byte[11];
+            Arrays.fill(endless, (byte) 0x80);
+            Check.fails(UncheckedIOException.class, io(() -> Frame.readVarint(in(endless))), "varint of 11 continued bytes");
+            Check.fails(UncheckedIOException.class, io(() -> Frame.readVarlong(in(endless))), "varlong of 11 continued bytes");
+            Check.fails(UncheckedIOException.class, io(() -> Frame.readVarint(in(new byte[]{(byte) 0x80}))), "truncated varint");
+        });
+
+        Check.test("frame round-trip", io(() -> {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            byte[] large = Check.random(Frame.MAX_LENGTH - 1 - 3, 61);
+            Frame.write(out, Frame.MESSAGE, new byte[0], new byte[0]);
+            Frame.write(out, Frame.RELAYED, Frame.varint(300), new byte[]{1, 2, 3});
+            Frame.write(out, Frame.DIRECT, new byte[]{4, 5, 6}, large);
+            DataInputStream in = in(bytes.toByteArray());
+            Frame empty = Frame.read(in), relayed = Frame.read(in), direct = Frame.read(in);
+            Check.isTrue(empty.getType() == Frame.MESSAGE && empty.getPayload().length == 0, "empty frame");
+            Check.isTrue(relayed.getType() == Frame.RELAYED, "type of relayed frame");
+            Check.equal(new byte[]{(byte) 0xAC, 2, 1, 2, 3}, relayed.getPayload(), "payload of relayed frame");
+            Check.isTrue(direct.getType() == Frame.DIRECT, "type of largest frame");
+            Check.equal(large, Arrays.copyOfRange(direct.getPayload(), 3, direct.getPayload().length), "payload of largest frame");
+            Check.equal(0, in.available(), "bytes left after frames");
+        }));
+
+        Check.test("frame invalid input", () -> {
+            byte[] oversize = Frame.varint(Frame.MAX_LENGTH + 1);
+            Check.fails(UncheckedIOException.class, io(() -> Frame.read(in(oversize))), "frame of MAX_LENGTH + 1 bytes");
+            Check.fails(UncheckedIOException.class, io(() -> Frame.read(in(new byte[]{0}))), "frame without type");
+            Check.fails(UncheckedIOException.class, io(() -> Frame.read(in(new byte[]{5, 1, 0, 0}))), "truncated frame");
+            Check.fails(UncheckedIOException.class, io(() -> Frame.read(in(new byte[0]))), "frame of no bytes");
+        });
+
+        Check.test("message round-trip", io(() -> {
+            Message text = new Message(Message.TEXT, new CodecHeader(CompressionType.LZSS, true, EncodingType.CRC32C), Check.text(1000, 62));
+            Message nack = new Message(Message.NACK, text.getId(), new int[]{0, 5, 300, Integer.MAX_VALUE}, new byte[0]);
+            Message acknowledged = new Message(Message.NACK, text.getId(), new int[0], new byte[0]);
+            Message chunk = new Message("bin", Check.random(5000, 63));
+            chunk.setChunk(7, 5L << 32, 6L << 32);
+            Message file = new Message(null, new byte[]{42});
+            for (Message message : new Message[]{text, nack, acknowledged, chunk, file}) {
+                String name = "message " + message.getExtension() + " " + message.getId();
+                byte[] head = message.head(), data = message.getData();
+                byte[] payload = Arrays.copyOf(head, head.length + data.length);
+                System.arraycopy(data, 0, payload, head.length, data.length);
+                Message read = Message.read(payload);
+                Check.equal(message.getId(), read.getId(), name);
+                Check.isTrue(Objects.equals(message.getExtension(), read.getExtension()), "extension of " + name);
+                Check.equal(message.getCodecs().toBytes(), read.getCodecs().toBytes(), "codecs of " + name);
+                Check.isTrue(Arrays.equals(message.getBlocks(), read.getBlocks()), "blocks of " + name);
+                Check.equal(message.getTransfer(), read.getTransfer(), "transfer of " + name);
+                Check.equal(message.getOffset(), read.getOffset(), "offset of " + name);
+                Check.equal(message.getSize(), read.getSize(), "size of " + name);
+                Check.equal(data, read.getData(), "data of " + name);
+            }
+            Check.isTrue(Message.key(1, -1) != Message.key(2, -1) && Message.key(0, 5) == 5, "message keys");
+        }));
+
+        Check.test("message invalid input", io(() -> {
+            Message chunk = new Message("bin", new byte[0]);
+            chunk.setChunk(1, 10, 5);
+            byte[] head = new Message(Message.TEXT, new byte[0]).head();
+            Check.fails(UncheckedIOException.class, io(() -> Message.read(chunk.head())), "message chunk past its file");
+            Check.fails(UncheckedIOException.class, io(() -> Message.read(Arrays.copyOf(head, head.length - 1))), "truncated message");
+            Check.fails(UncheckedIOException.class, io(() -> Message.read(new byte[]{1, 100, 0})), "message extension past its end");
+            Check.fails(UncheckedIOException.class, io(() -> Message.read(new byte[]{1, 0, 100, 0})), "message codecs past their end");
+        }));
+    }
+
+    public static void main(String[] args) {
+        run();
+        Check.report();
+    }
+}
@@ -0,0 +1,93 @@
+import algorithms.Check;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+public class OrderedStageTest {
+    private static final int ITEMS = 20_000;
+
+    //work of random length, so items finish out of order
+    private static void delay() {
+        LockSupport.parkNanos(ThreadLocalRandom.current().nextLong(50_000));
+    }
+
+    private static boolean await(CountDownLatch latch) {
+        try {
+            return latch.await(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    public static void run() {
+        Check.test("ordered stages keep order", () -> {
+            //two stages like decode and decompress, the first one drops every seventh item as sink drops control messages
+            List<Integer> out = new ArrayList<>();
+            CountDownLatch finished = new CountDownLatch(1);
+            OrderedStage<Integer, Void> sink = new OrderedStage<>("Sink", 1, 64, item -> {
+                out.add(item);
+                if (item == ITEMS - 1) finished.countDown();
+                return null;
+            }, none -> {});
+            OrderedStage<Integer, Integer> second = new OrderedStage<>("Second", 4, 16, item -> {
+                delay();
+                return item;
+            }, sink::put);
+            OrderedStage<Integer, Integer> first = new OrderedStage<>("First", 4, 16, item -> {
+                delay();
+                return item % 7 == 3 ? null : item;
+            }, second::put);
+            for (int i = 0; i < ITEMS; i++) first.put(i);
+            Check.isTrue(await(finished), "last of " + ITEMS + " items reached sink");
+            List<Integer> expected = new ArrayList<>();
+            for (int i = 0; i < ITEMS; i++) if (i % 7 != 3) expected.add(i);
+            Check.isTrue(expected.equals(out), "items in order they were put, without dropped ones");
+            for (OrderedStage<?, ?> stage : new OrderedStage<?, ?>[]{first, second, sink}) stage.shutdown();
+        });
+
+        Check.test("ordered stage isolates errors", () -> {
+            //exception or error of one item drops that item only, and its room in stage is given back
+            List<Integer> out = new ArrayList<>();
+            CountDownLatch finished = new CountDownLatch(1);
+            OrderedStage<Integer, Integer> stage = new OrderedStage<>("Failing", 2, 4, item -> {
+                if (item == 10) throw new IllegalStateException("expected by test");
+                if (item == 20) throw new AssertionError("expected by test");
+                return item;
+            }, item -> {
+                out.add(item);
+                if (item == 99) finished.countDown();
+            });
+            for (int i = 0; i < 100; i++) stage.put(i);
+            Check.isTrue(await(finished), "items after failed ones went on");
+            Check.equal(98, out.size(), "items without failed ones");
+            Check.isTrue(!out.contains(10) && !out.contains(20), "failed items were dropped");
+            stage.shutdown();
+        });
+
+        Check.test("ordered stage capacity", () -> {
+            //more threads than room, still no more items than capacity are worked on at once
+            AtomicInteger working = new AtomicInteger(), most = new AtomicInteger();
+            CountDownLatch finished = new CountDownLatch(200);
+            OrderedStage<Integer, Integer> stage = new OrderedStage<>("Bounded", 8, 3, item -> {
+                most.accumulateAndGet(working.incrementAndGet(), Math::max);
+                delay();
+                working.decrementAndGet();
+                return item;
+            }, item -> finished.countDown());
+            for (int i = 0; i < 200; i++) stage.put(i);
+            Check.isTrue(await(finished), "items of bounded stage");
+            Check.isTrue(most.get() <= 3, most.get() + " items in stage with room for 3");
+            stage.shutdown();
+        });
+    }
+
+    public static void main(String[] args) {
+        run();
+        Check.report();
+    }
+}
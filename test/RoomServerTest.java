@@ -0,0 +1,163 @@
+import algorithms.Capabilities;
+import algorithms.Check;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+public class RoomServerTest {
+    private static final int TIMEOUT_MILLIS = 10_000;
+
+    //client speaking frames over blocking socket
+    private static class Client {
+        private final Socket socket;
+        private final DataInputStream in;
+        private final DataOutputStream out;
+
+        Client(int port, String room) throws IOException {
+            socket = new Socket("127.0.0.1", port);
+            socket.setSoTimeout(TIMEOUT_MILLIS);
+            in = new DataInputStream(socket.getInputStream());
+            out = new DataOutputStream(socket.getOutputStream());
+            send(Frame.CAPABILITIES, new byte[0], Capabilities.local().toBytes());
+            byte[] name = room.getBytes(StandardCharsets.UTF_8);
+            send(Frame.JOIN, new byte[0], name);
+            Frame joined = next();
+            Check.isTrue(joined.getType() == Frame.JOIN && Arrays.equals(name, joined.getPayload()), "join of room " + room);
+        }
+
+        void send(int type, byte[] head, byte[] body) throws IOException {
+            Frame.write(out, type, head, body);
+            out.flush();
+        }
+
+        void send(Message message) throws IOException {
+            send(Frame.MESSAGE, message.head(), message.getData());
+        }
+
+        void send(Message message, int recipient) throws IOException {
+            byte[] head = message.head(), number = Frame.varint(recipient);
+            byte[] both = Arrays.copyOf(number, number.length + head.length);
+            System.arraycopy(head, 0, both, number.length, head.length);
+            send(Frame.DIRECT, both, message.getData());
+        }
+
+        //next frame other than capabilities, which server sends whenever room changes
+        Frame next() throws IOException {
+            Frame frame;
+            do frame = Frame.read(in);
+            while (frame.getType() == Frame.CAPABILITIES);
+            return frame;
+        }
+
+        //message relayed by server, with number of its sender set
+        Message receive() throws IOException {
+            Frame frame = next();
+            Check.equal(Frame.RELAYED, frame.getType(), "type of relayed frame");
+            DataInputStream payload = new DataInputStream(new ByteArrayInputStream(frame.getPayload()));
+            int sender = Frame.readVarint(payload);
+            Message message = Message.read(payload);
+            message.setSender(sender);
+            return message;
+        }
+
+        void close() throws IOException {
+            socket.close();
+        }
+    }
+
+    private interface IOAction {
+        void run() throws IOException;
+    }
+
+    private static Runnable io(IOAction action) {
+        return () -> {
+            try {
+                action.run();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        };
+    }
+
+    //server runs for the rest of test program on daemon thread
+    private static int start() throws IOException {
+        int port;
+        try (ServerSocket free = new ServerSocket(0)) {
+            port = free.getLocalPort();
+        }
+        int serverPort = port;
+        Thread server = new Thread(() -> {
+            try {
+                new RoomServer(serverPort).run();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }, "Room server");
+        server.setDaemon(true);
+        server.start();
+        for (long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS; ; ) {
+            try {
+                new Socket("127.0.0.1", port).close();
+                return port;
+            } catch (IOException e) {
+                if (System.currentTimeMillis() > deadline) throw e;
+                try {
+                    Thread.sleep(10);
+                } catch (InterruptedException interrupted) {
+                    throw new IOException(interrupted);
+                }
+            }
+        }
+    }
+
+    public static void run() {
+        Check.test("room server relay and direct", io(() -> {
+            int port = start();
+            Client a = new Client(port, "x"), b = new Client(port, "x"), c = new Client(port, "y"), d = new Client(port, "y");
+            try {
+                //message goes to the other member of its room only, with number of its sender
+                Message hello = new Message(Message.TEXT, "hello".getBytes(StandardCharsets.UTF_8));
+                a.send(hello);
+                Message relayed = b.receive();
+                Check.equal(hello.getId(), relayed.getId(), "id of relayed message");
+                Check.equal(hello.getData(), relayed.getData(), "data of relayed message");
+                int numberOfA = relayed.getSender();
+                Check.isTrue(numberOfA != 0, "number of sender");
+
+                //c would get message of a before this one if it was relayed across rooms
+                Message other = new Message(Message.TEXT, "other room".getBytes(StandardCharsets.UTF_8));
+                d.send(other);
+                Check.equal(other.getData(), c.receive().getData(), "message of the other room");
+
+                //reply goes to its recipient only, and not across rooms
+                c.send(new Message(Message.NACK, 1, new int[0], new byte[0]), numberOfA);
+                Message nack = new Message(Message.NACK, hello.getId(), new int[]{2}, new byte[0]);
+                b.send(nack, numberOfA);
+                Message direct = a.receive();
+                Check.isTrue(direct.getId() == hello.getId() && Arrays.equals(new int[]{2}, direct.getBlocks()), "direct message");
+                Check.isTrue(direct.getSender() != 0 && direct.getSender() != numberOfA, "sender of direct message");
+
+                //b did not get its own reply, next message it gets is the one of a
+                Message again = new Message(Message.TEXT, "again".getBytes(StandardCharsets.UTF_8));
+                a.send(again);
+                Check.equal(again.getData(), b.receive().getData(), "message after direct");
+            } finally {
+                for (Client client : new Client[]{a, b, c, d}) client.close();
+            }
+        }));
+
+        Check.test("room server load", io(() -> Check.isTrue(LoadClient.run("127.0.0.1", start(), 20, 2, 3, 100), "load client with 20 clients in 2 rooms")));
+    }
+
+    public static void main(String[] args) {
+        run();
+        Check.report();
+    }
+}
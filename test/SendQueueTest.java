@@ -0,0 +1,98 @@
+import algorithms.Check;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class SendQueueTest {
+    //socket of peer which stopped reading: writes wait until it is released, then bytes are counted
+    private static class StalledPeer extends OutputStream {
+        private final CountDownLatch released = new CountDownLatch(1);
+        private long bytes;
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            try {
+                released.await();
+            } catch (InterruptedException e) {
+                throw new IOException(e);
+            }
+            synchronized (this) {
+                bytes += len;
+            }
+        }
+    }
+
+    public static void run() {
+        Check.test("send queue bounds with stalled peer", () -> {
+            StalledPeer peer = new StalledPeer();
+            SendQueue queue = new SendQueue(new DataOutputStream(peer), 1000, 4000);
+            List<Exception> results = Collections.synchronizedList(new ArrayList<>());
+            CountDownLatch sent = new CountDownLatch(1);
+            //first frame is taken by writer thread, which then waits on the peer
+            Check.isTrue(queue.offer(Frame.MESSAGE, new byte[0], new byte[100], false, results::add), "first frame");
+            int control = 0;
+            while (control < 1000 && queue.offer(Frame.MESSAGE, new byte[0], new byte[100], false, results::add)) control++;
+            Check.isTrue(control >= 39 && control <= 41, control + " control frames of 100 bytes queued behind stalled peer with room for 4000");
+            int bulk = 0;
+            while (bulk < 1000 && queue.offer(Frame.MESSAGE, new byte[0], new byte[100], true, results::add)) bulk++;
+            Check.equal(10, bulk, "bulk frames of 100 bytes queued with room for 1000");
+            Check.isTrue(!queue.offer(Frame.MESSAGE, new byte[0], new byte[1], true, null), "bulk frame to full queue");
+
+            //everything taken is written once peer reads again, frame queued last is reported last
+            peer.released.countDown();
+            try {
+                queue.awaitCapacity(1);
+                Check.isTrue(queue.offer(Frame.MESSAGE, new byte[0], new byte[1], true, error -> sent.countDown()), "bulk frame after peer read");
+                Check.isTrue(sent.await(10, TimeUnit.SECONDS), "frames written after peer read");
+            } catch (IOException | InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+            Check.equal(1 + control + bulk, results.size(), "frames reported as sent");
+            Check.isTrue(results.stream().allMatch(r -> r == null), "frames sent without error");
+        });
+
+        Check.test("send queue oversize frame", () -> {
+            //frame larger than its bound still goes when nothing of its kind waits, else no frame could ever be that large
+            //writer takes chat frame before bulk ones and then waits on peer, so bulk frames stay queued
+            SendQueue queue = new SendQueue(new DataOutputStream(new StalledPeer()), 1000, 1000);
+            queue.offer(Frame.MESSAGE, new byte[0], new byte[10], false, null);
+            Check.isTrue(queue.offer(Frame.MESSAGE, new byte[0], new byte[5000], true, null), "bulk frame over bound in empty queue");
+            Check.isTrue(!queue.offer(Frame.MESSAGE, new byte[0], new byte[10], true, null), "bulk frame behind oversize one");
+            queue.close();
+        });
+
+        Check.test("send queue close", () -> {
+            SendQueue queue = new SendQueue(new DataOutputStream(new StalledPeer()), 1000, 1000);
+            List<Exception> results = Collections.synchronizedList(new ArrayList<>());
+            queue.offer(Frame.MESSAGE, new byte[0], new byte[10], false, results::add);
+            queue.offer(Frame.MESSAGE, new byte[0], new byte[10], false, results::add);
+            queue.offer(Frame.MESSAGE, new byte[0], new byte[10], true, results::add);
+            queue.close();
+            Check.isTrue(!queue.offer(Frame.MESSAGE, new byte[0], new byte[10], false, null), "frame to closed queue");
+            //the frame writer thread holds is stuck on peer, the queued ones fail at once
+            Check.isTrue(results.size() >= 2 && results.stream().allMatch(r -> r instanceof IOException), "queued frames failed by close");
+            try {
+                queue.awaitCapacity(10);
+                Check.isTrue(false, "capacity of closed queue");
+            } catch (IOException | InterruptedException e) {
+                Check.isTrue(e instanceof IOException, "capacity of closed queue threw " + e);
+            }
+        });
+    }
+
+    public static void main(String[] args) {
+        run();
+        Check.report();
+    }
+}
@@ -0,0 +1,56 @@
+package algorithms;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+public class BWTTest {
+    public static void run() {
+        Check.test("bwt samples", () -> {
+            for (byte[] data : Check.samples()) {
+                Check.equal(data, Check.roundTrip(new BWT(), data), "bwt of " + Check.describe(data));
+                Check.equal(data, Check.roundTrip(new BWT(1000, ForkJoinPool.commonPool()), data), "bwt in small blocks of " + Check.describe(data));
+            }
+        });
+
+        Check.test("bwt periodic input", () -> {
+            //equal rotations, their order must not matter
+            for (String text : new String[]{"a", "ab", "abababababab", "abcabcabcabc", "banana", "aaaaaaaab"}) {
+                byte[] data = text.getBytes(StandardCharsets.US_ASCII);
+                Check.equal(data, Check.roundTrip(new BWT(), data), "bwt of " + text);
+                int[] sorted = BWT.sortRotations(data);
+                int[] expected = IntStream.range(0, data.length).boxed().sorted(Comparator.comparing(i -> rotation(data, i), Arrays::compareUnsigned))
+                        .mapToInt(Integer::intValue).toArray();
+                boolean same = true;
+                for (int i = 0; i < data.length; i++) same &= Arrays.equals(rotation(data, sorted[i]), rotation(data, expected[i]));
+                Check.isTrue(same, "rotations of " + text + " are sorted");
+            }
+        });
+
+        Check.test("bwt move to front", () -> {
+            byte[] data = Check.random(5000, 20);
+            byte[] moved = data.clone();
+            BWT.moveToFront(moved);
+            BWT.inverseMoveToFront(moved);
+            Check.equal(data, moved, "inverse of move to front");
+        });
+
+        Check.test("bwt compresses text", () -> {
+            byte[] data = Check.text(200_000, 21);
+            Check.isTrue(new BWT().compress(data).length < new Huffman().compress(data).length, "bwt beats plain huffman on text");
+        });
+    }
+
+    private static byte[] rotation(byte[] data, int start) {
+        byte[] rotated = new byte[data.length];
+        for (int i = 0; i < data.length; i++) rotated[i] = data[(start + i) % data.length];
+        return rotated;
+    }
+
+    public static void main(String[] args) {
+        run();
+        Check.report();
+    }
+}
@@ -0,0 +1,42 @@
+package algorithms;
+
+import java.util.concurrent.ForkJoinPool;
+
+public class BlockCompressionTest {
+    public static void run() {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            Check.test("block compression samples", () -> {
+                for (CompressionType type : CompressionType.values())
+                    for (byte[] data : Check.samples()) {
+                        BlockCompression codec = new BlockCompression(type.create(), 1000, pool);
+                        Check.equal(data, Check.roundTrip(codec, data), type + " in blocks of " + Check.describe(data));
+                    }
+            });
+
+            Check.test("block compression block boundaries", () -> {
+                //exact multiple of block size, one byte over it and one block only
+                for (int length : new int[]{4096, 4097, 4095, 1}) {
+                    byte[] data = Check.text(length, length);
+                    Check.equal(data, Check.roundTrip(new BlockCompression(new Huffman(), 1024, pool), data),
+                            "blocks of " + length + " bytes");
+                }
+            });
+
+            Check.test("block compression invalid index", () -> {
+                byte[] compressed = new BlockCompression(new Huffman(), 1000, pool).compress(Check.text(10_000, 10));
+                compressed[0] = 0x7F;
+                Check.fails(IllegalArgumentException.class, () -> new BlockCompression(new Huffman(), 1000, pool).decompress(compressed),
+                        "block count larger than input");
+                Check.fails(IllegalArgumentException.class, () -> new BlockCompression(new Huffman(), 0, pool), "empty blocks");
+            });
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    public static void main(String[] args) {
+        run();
+        Check.report();
+    }
+}
@@ -0,0 +1,114 @@
+package algorithms;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+
+//Checks of plain test programs, there is no test framework in the build: failures are printed and counted,
+//report ends with status 1 if there were any
+public final class Check {
+    private static final String[] WORDS = {"the", "quick", "brown", "fox", "jumps", "over", "lazy", "dog", "hello", "how",
+            "are", "you", "{\"id\":", "\"name\":", "42,", "null}", "\n", ". ", "chat", "message"};
+
+    private static int checks, failures;
+
+    private Check() {
+    }
+
+    //test which throws counts as failed, the others still run
+    public static void test(String name, Runnable test) {
+        try {
+            test.run();
+        } catch (Throwable e) {
+            fail(name + " threw " + e);
+            e.printStackTrace(System.out);
+        }
+    }
+
+    public static void isTrue(boolean condition, String what) {
+        checks++;
+        if (!condition) fail(what);
+    }
+
+    public static void equal(byte[] expected, byte[] actual, String what) {
+        isTrue(Arrays.equals(expected, actual), what);
+    }
+
+    public static void equal(long expected, long actual, String what) {
+        isTrue(expected == actual, what + ": expected " + expected + " but was " + actual);
+    }
+
+    //action has to throw exception of given type
+    public static void fails(Class<? extends Exception> type, Runnable action, String what) {
+        checks++;
+        try {
+            action.run();
+            fail(what + " did not throw " + type.getSimpleName());
+        } catch (Exception e) {
+            if (!type.isInstance(e)) fail(what + " threw " + e + " instead of " + type.getSimpleName());
+        }
+    }
+
+    private static void fail(String what) {
+        failures++;
+        System.out.println("FAILED: " + what);
+    }
+
+    //prints totals, exits with 1 if something failed
+    public static void report() {
+        System.out.println(checks + " checks, " + failures + " failed");
+        if (failures > 0) System.exit(1);
+    }
+
+    public static byte[] roundTrip(Compression codec, byte[] data) {
+        return codec.decompress(codec.compress(data));
+    }
+
+    public static byte[] roundTrip(Encoding codec, byte[] data) {
+        return codec.decode(codec.encode(data));
+    }
+
+    //bits are counted from the highest bit of first byte
+    public static void flip(byte[] data, long bit) {
+        data[(int) (bit >>> 3)] ^= 0x80 >>> (bit & 7);
+    }
+
+    public static byte[] random(int length, long seed) {
+        byte[] data = new byte[length];
+        new Random(seed).nextBytes(data);
+        return data;
+    }
+
+    //words and JSON-like pieces in random order, compressible like chat and attachments
+    public static byte[] text(int length, long seed) {
+        Random random = new Random(seed);
+        StringBuilder text = new StringBuilder(length + 16);
+        while (text.length() < length) text.append(WORDS[random.nextInt(WORDS.length)]).append(' ');
+        return text.substring(0, length).getBytes(StandardCharsets.US_ASCII);
+    }
+
+    //runs of random bytes of random length up to maxRun
+    public static byte[] runs(int length, int maxRun, long seed) {
+        Random random = new Random(seed);
+        byte[] data = new byte[length];
+        for (int pos = 0; pos < length; ) {
+            int run = Math.min(length - pos, 1 + random.nextInt(maxRun));
+            Arrays.fill(data, pos, pos + run, (byte) random.nextInt(256));
+            pos += run;
+        }
+        return data;
+    }
+
+    //inputs every codec has to give back as they were: empty, one byte, one repeated byte, every byte value, random, text, runs
+    public static byte[][] samples() {
+        byte[] values = new byte[256];
+        for (int i = 0; i < 256; i++) values[i] = (byte) i;
+        byte[] repeated = new byte[1000];
+        Arrays.fill(repeated, (byte) 'a');
+        return new byte[][]{new byte[0], {(byte) 0xFF}, repeated, values, random(10_000, 1), text(50_000, 2), runs(50_000, 400, 3)};
+    }
+
+    public static String describe(byte[] data) {
+        return data.length + " bytes";
+    }
+}
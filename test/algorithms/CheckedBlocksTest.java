@@ -0,0 +1,66 @@
+package algorithms;
+
+import java.util.Arrays;
+import java.util.Random;
+
+public class CheckedBlocksTest {
+    public static void run() {
+        Check.test("checked blocks samples", () -> {
+            for (int blockSize : new int[]{4, 7, 1024})
+                for (byte[] data : Check.samples())
+                    Check.equal(data, Check.roundTrip(new CheckedBlocks(blockSize), data), "checked blocks of " + blockSize + " with " + Check.describe(data));
+        });
+
+        Check.test("checked blocks find damage", () -> {
+            //one flipped bit anywhere, checksum and the shorter last block included, is found in its block only
+            byte[] data = Check.random(5000, 31);
+            CheckedBlocks codec = new CheckedBlocks(256);
+            byte[] encoded = codec.encode(data);
+            Random random = new Random(32);
+            for (int block = 0; block < codec.blockCount(encoded); block++) {
+                int start = block * 260, length = Math.min(260, encoded.length - start);
+                byte[] damaged = encoded.clone();
+                Check.flip(damaged, 8L * start + random.nextInt(8 * length));
+                Check.isTrue(Arrays.equals(new int[]{block}, codec.damagedBlocks(damaged)), "damage of block " + block);
+            }
+            Check.equal(codec.blockCount(encoded), codec.corrections(), "corrections of checked blocks");
+            Check.equal(0, codec.damagedBlocks(encoded).length, "damage of intact blocks");
+        });
+
+        Check.test("checked blocks at wrong place", () -> {
+            CheckedBlocks codec = new CheckedBlocks(16);
+            byte[] encoded = codec.encode(new byte[100]);
+            System.arraycopy(encoded, 20, encoded, 40, 20);
+            Check.isTrue(Arrays.equals(new int[]{2}, codec.damagedBlocks(encoded)), "block copied over the next one");
+        });
+
+        Check.test("checked blocks repair", () -> {
+            byte[] data = Check.text(20_000, 33);
+            CheckedBlocks codec = new CheckedBlocks();
+            byte[] clean = codec.encode(data), received = clean.clone();
+            Random random = new Random(34);
+            for (int k = 0; k < 6; k++) Check.flip(received, random.nextInt(8 * received.length));
+            int[] damaged = codec.damagedBlocks(received);
+            Check.isTrue(damaged.length > 0, "damage of received blocks");
+            Check.fails(IllegalArgumentException.class, () -> codec.decode(received), "decode of damaged blocks");
+            codec.patch(received, damaged, codec.copyBlocks(clean, damaged));
+            Check.equal(0, codec.damagedBlocks(received).length, "damage after patch");
+            Check.equal(data, codec.decode(received), "checked blocks after patch");
+        });
+
+        Check.test("checked blocks invalid input", () -> {
+            CheckedBlocks codec = new CheckedBlocks();
+            byte[] encoded = codec.encode(Check.random(3000, 35));
+            Check.fails(IllegalArgumentException.class, () -> new CheckedBlocks(3), "checked blocks of 3 bytes");
+            Check.fails(IllegalArgumentException.class, () -> codec.decode(new byte[7]), "checked blocks of 7 bytes");
+            Check.fails(IllegalArgumentException.class, () -> codec.patch(encoded, new int[]{3}, new byte[1028]), "patch of block 3 out of 3");
+            Check.fails(IllegalArgumentException.class, () -> codec.patch(encoded, new int[]{-1}, new byte[1028]), "patch of block -1");
+            Check.fails(IllegalArgumentException.class, () -> codec.patch(encoded, new int[]{0, 1}, new byte[1028]), "patch with one of two blocks");
+        });
+    }
+
+    public static void main(String[] args) {
+        run();
+        Check.report();
+    }
+}
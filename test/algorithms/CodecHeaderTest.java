@@ -0,0 +1,76 @@
+package algorithms;
+
+import java.util.Arrays;
+import java.util.EnumSet;
+
+public class CodecHeaderTest {
+    public static void run() {
+        Check.test("codec header round-trip", () -> {
+            EncodingType[][] chains = {{}, {EncodingType.CRC32C}, {EncodingType.REED_SOLOMON_16, EncodingType.REPETITION_3}};
+            for (CompressionType compression : CompressionType.values())
+                for (boolean blocks : new boolean[]{false, true})
+                    for (EncodingType[] encodings : chains) {
+                        String name = "codec header of " + compression + (blocks ? " in blocks" : "") + " with " + Arrays.toString(encodings);
+                        byte[] bytes = new CodecHeader(compression, blocks, encodings).toBytes();
+                        CodecHeader header = CodecHeader.fromBytes(bytes);
+                        Check.isTrue(header.getCompression() == compression, name);
+                        Check.isTrue(Arrays.equals(encodings, header.getEncodings()), name);
+                        Check.equal(bytes, header.toBytes(), name);
+                    }
+        });
+
+        Check.test("codec header pipeline", () -> {
+            byte[] data = Check.text(300_000, 51);
+            for (boolean blocks : new boolean[]{false, true}) {
+                CodecHeader header = CodecHeader.fromBytes(new CodecHeader(CompressionType.LZSS, blocks, EncodingType.CRC32C).toBytes());
+                Check.equal(data, header.createPipeline().receive(header.createPipeline().send(data)), "pipeline of codec header" + (blocks ? " in blocks" : ""));
+            }
+        });
+
+        Check.test("codec header invalid input", () -> {
+            Check.fails(IllegalArgumentException.class, () -> CodecHeader.fromBytes(new byte[]{1}), "codec header without compression");
+            Check.fails(IllegalArgumentException.class, () -> CodecHeader.fromBytes(new byte[]{2, 0}), "codec header with wrong count");
+            Check.fails(IllegalArgumentException.class, () -> CodecHeader.fromBytes(new byte[]{1, 0x3F}), "codec header of unknown compression");
+            Check.fails(IllegalArgumentException.class, () -> CodecHeader.fromBytes(new byte[]{2, 0, (byte) 0xBF}), "codec header of unknown encoding");
+            Check.fails(IllegalArgumentException.class, () -> CodecHeader.fromBytes(new byte[]{1, (byte) 0x80}), "codec header starting with encoding");
+            Check.fails(IllegalArgumentException.class, () -> CodecHeader.fromBytes(new byte[]{2, 0, 1}), "codec header with second compression");
+        });
+
+        Check.test("capabilities round-trip", () -> {
+            Capabilities some = new Capabilities(EnumSet.of(CompressionType.STORED, CompressionType.RANS), EnumSet.of(EncodingType.NONE, EncodingType.CRC32C));
+            for (Capabilities capabilities : new Capabilities[]{Capabilities.local(), Capabilities.baseline(), some}) {
+                Capabilities read = Capabilities.fromBytes(capabilities.toBytes());
+                Check.isTrue(read.getCompressions().equals(capabilities.getCompressions()), "compressions of " + capabilities.getCompressions());
+                Check.isTrue(read.getEncodings().equals(capabilities.getEncodings()), "encodings of " + capabilities.getEncodings());
+            }
+        });
+
+        Check.test("capabilities of newer peer", () -> {
+            //ids unknown to this build are skipped
+            Capabilities read = Capabilities.fromBytes(new byte[]{2, 7, 60, 3, 8, 61, 62});
+            Check.isTrue(read.getCompressions().equals(EnumSet.of(CompressionType.RANS)), "known compressions of newer peer");
+            Check.isTrue(read.getEncodings().equals(EnumSet.of(EncodingType.CRC32C)), "known encodings of newer peer");
+        });
+
+        Check.test("capabilities intersect", () -> {
+            Capabilities baseline = Capabilities.baseline(), local = Capabilities.local();
+            Check.isTrue(local.getCompressions().containsAll(baseline.getCompressions()), "baseline compressions are local");
+            Check.isTrue(local.getEncodings().containsAll(baseline.getEncodings()), "baseline encodings are local");
+            Capabilities other = new Capabilities(EnumSet.of(CompressionType.BWT), EnumSet.of(EncodingType.REED_SOLOMON_8));
+            Capabilities common = local.intersect(other);
+            Check.isTrue(common.getCompressions().equals(EnumSet.of(CompressionType.STORED, CompressionType.BWT)), "common compressions");
+            Check.isTrue(common.getEncodings().equals(EnumSet.of(EncodingType.NONE, EncodingType.REPETITION_5, EncodingType.REED_SOLOMON_8)), "common encodings");
+        });
+
+        Check.test("capabilities invalid input", () -> {
+            Check.fails(IllegalArgumentException.class, () -> Capabilities.fromBytes(new byte[0]), "empty capabilities");
+            Check.fails(IllegalArgumentException.class, () -> Capabilities.fromBytes(new byte[]{3, 0, 1}), "truncated compressions");
+            Check.fails(IllegalArgumentException.class, () -> Capabilities.fromBytes(new byte[]{1, 0, 2, 0}), "truncated encodings");
+        });
+    }
+
+    public static void main(String[] args) {
+        run();
+        Check.report();
+    }
+}
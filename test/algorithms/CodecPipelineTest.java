@@ -0,0 +1,55 @@
+package algorithms;
+
+public class CodecPipelineTest {
+    public static void run() {
+        Check.test("compression ids", () -> {
+            for (CompressionType type : CompressionType.values())
+                Check.isTrue(CompressionType.fromId(type.getId()) == type, "compression id of " + type);
+            Check.fails(IllegalArgumentException.class, () -> CompressionType.fromId(99), "unknown compression id");
+        });
+
+        Check.test("pipeline of every compression and encoding", () -> {
+            byte[][] inputs = {new byte[0], {(byte) 0xFF}, Check.text(20_000, 41), Check.random(5000, 42)};
+            for (CompressionType compression : CompressionType.values())
+                for (EncodingType encoding : EncodingType.values()) {
+                    String name = "pipeline of " + compression + " and " + encoding;
+                    CodecPipeline pipeline = new CodecPipeline(compression.create(), encoding.create());
+                    for (byte[] data : inputs) {
+                        byte[] copy = data.clone();
+                        byte[] sent = pipeline.send(data);
+                        Check.equal(copy, data, name + " changed its input");
+                        Check.equal(data, pipeline.decompress(pipeline.decode(sent.clone())), name + " in two steps with " + Check.describe(data));
+                        Check.equal(data, pipeline.receive(sent), name + " with " + Check.describe(data));
+                    }
+                }
+        });
+
+        Check.test("pipeline results outlive pool", () -> {
+            //later payloads reuse pooled buffers, results of earlier ones must not change
+            BufferPool pool = new BufferPool();
+            CodecPipeline pipeline = new CodecPipeline(pool, new LZSS(), new ReedSolomon(16), new CheckedBlocks());
+            byte[] first = Check.text(100_000, 43), second = Check.random(100_000, 44);
+            byte[] sentFirst = pipeline.send(first), copy = sentFirst.clone();
+            byte[] sentSecond = pipeline.send(second);
+            Check.equal(copy, sentFirst, "first result after second payload");
+            byte[] receivedFirst = pipeline.receive(sentFirst);
+            byte[] receivedSecond = pipeline.receive(sentSecond);
+            Check.equal(first, receivedFirst, "first payload of pooled pipeline");
+            Check.equal(second, receivedSecond, "second payload of pooled pipeline");
+        });
+
+        Check.test("pipeline corrections", () -> {
+            byte[] data = Check.text(30_000, 45);
+            CodecPipeline pipeline = new CodecPipeline(new BufferPool(), new Huffman(), new Hamming(), new ReedSolomon(32));
+            byte[] sent = pipeline.send(data);
+            for (int k = 0; k < 10; k++) Check.flip(sent, 8L * 255 * k + 17);
+            Check.equal(data, pipeline.receive(sent), "pipeline with damaged codewords");
+            Check.equal(10, pipeline.corrections(), "corrections of pipeline");
+        });
+    }
+
+    public static void main(String[] args) {
+        run();
+        Check.report();
+    }
+}
@@ -0,0 +1,54 @@
+package algorithms;
+
+import java.nio.charset.StandardCharsets;
+import java.util.EnumSet;
+import java.util.Set;
+
+public class CompressionSelectorTest {
+    public static void run() {
+        Check.test("selection of incompressible data", () -> {
+            Check.isTrue(CompressionSelector.select(Check.random(200_000, 11)) == CompressionType.STORED, "random data is stored");
+            Check.isTrue(CompressionSelector.select(Check.text(63, 12)) == CompressionType.STORED, "payload under 64 bytes is stored");
+            Check.isTrue(CompressionSelector.select(new byte[0]) == CompressionType.STORED, "empty payload is stored");
+        });
+
+        Check.test("selection pays off", () -> {
+            //picked codec gives payload back and saves at least an eighth of it
+            byte[][] inputs = {new byte[100_000], Check.text(300_000, 13), Check.runs(200_000, 300, 14)};
+            for (byte[] data : inputs) {
+                CompressionType type = CompressionSelector.select(data);
+                Check.isTrue(type != CompressionType.STORED, "compressible " + Check.describe(data) + " is not stored");
+                byte[] compressed = type.create().compress(data);
+                Check.isTrue(compressed.length <= data.length * 7 / 8, type + " saves less than an eighth");
+                Check.equal(data, type.create().decompress(compressed), type + " of selected payload");
+            }
+        });
+
+        Check.test("selection stays within capabilities", () -> {
+            byte[][] inputs = {Check.text(100_000, 15), Check.runs(100_000, 300, 16), Check.random(1000, 17)};
+            for (CompressionType only : CompressionType.values())
+                for (byte[] data : inputs) {
+                    CompressionType type = CompressionSelector.select(data, EnumSet.of(only));
+                    Check.isTrue(type == only || type == CompressionType.STORED, type + " picked when only " + only + " is allowed");
+                }
+            for (byte[] data : inputs)
+                Check.isTrue(CompressionSelector.select(data, EnumSet.noneOf(CompressionType.class)) == CompressionType.STORED,
+                        "nothing allowed gives stored");
+        });
+
+        Check.test("selection of chat text", () -> {
+            byte[] line = "Client: hello, are you there? see you at the meeting".getBytes(StandardCharsets.UTF_8);
+            CompressionType type = CompressionSelector.selectText(line);
+            Check.isTrue(type == CompressionType.HUFFMAN_ENGLISH_CHAT, "short chat line gets chat model, got " + type);
+            Check.equal(line, Check.roundTrip(type.create(), line), "chat line with " + type);
+            Set<CompressionType> baseline = EnumSet.of(CompressionType.STORED, CompressionType.HUFFMAN);
+            Check.isTrue(baseline.contains(CompressionSelector.selectText(line, baseline)), "text models are not used when peer lacks them");
+            Check.isTrue(CompressionSelector.selectText(new byte[0]) == CompressionType.STORED, "empty text is stored");
+        });
+    }
+
+    public static void main(String[] args) {
+        run();
+        Check.report();
+    }
+}
@@ -0,0 +1,79 @@
+package algorithms;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+public class EncodingSelectorTest {
+    private static final double[] RATES = {0, 1e-9, 1e-7, 1e-5, 1e-4, 1e-3, 3e-3, 1e-2, 3e-2, 0.1, 0.5};
+
+    public static void run() {
+        Check.test("encoding ids", () -> {
+            for (EncodingType type : EncodingType.values())
+                Check.isTrue(EncodingType.fromId(type.getId()) == type, "encoding id of " + type);
+            Check.fails(IllegalArgumentException.class, () -> EncodingType.fromId(99), "unknown encoding id");
+        });
+
+        Check.test("encoding residual error rate", () -> {
+            //more damage on channel never leaves fewer wrong bits, and no code makes them more than uncoded
+            for (EncodingType type : EncodingType.values()) {
+                double previous = 0;
+                for (double rate : RATES) {
+                    double residual = type.residualErrorRate(rate);
+                    Check.isTrue(residual >= previous, type + " residual falls at rate " + rate);
+                    Check.isTrue(residual <= Math.max(rate, 1e-300) * 1.0001 || type.name().startsWith("REED_SOLOMON"),
+                            type + " residual " + residual + " is over channel rate " + rate);
+                    previous = residual;
+                }
+            }
+            Check.isTrue(Math.abs(EncodingType.binomialTail(3, 0.5, 1) - 0.5) < 1e-12, "binomial tail of 3 fair coins");
+            Check.isTrue(EncodingType.binomialTail(255, 0, 4) == 0, "binomial tail without errors");
+        });
+
+        Check.test("encoding selection meets target", () -> {
+            for (double rate : RATES) {
+                EncodingType type = EncodingSelector.select(rate, 1e-9);
+                Check.isTrue(type.expectedOverhead(rate) <= 8, type + " picked at rate " + rate + " is too heavy");
+                boolean reachable = false;
+                for (EncodingType other : EncodingType.values())
+                    reachable |= other.expectedOverhead(rate) <= 8 && other.residualErrorRate(rate) <= 1e-9;
+                if (reachable) Check.isTrue(type.residualErrorRate(rate) <= 1e-9, type + " picked at rate " + rate + " misses target");
+            }
+            Check.isTrue(EncodingSelector.select(0, 1e-9) == EncodingType.NONE, "clean channel is not encoded");
+        });
+
+        Check.test("encoding selection follows reports", () -> {
+            EncodingSelector selector = new EncodingSelector();
+            EncodingType prior = selector.select();
+            for (int i = 0; i < 8; i++) selector.record(1 << 23, 0);
+            EncodingType clean = selector.select();
+            Check.isTrue(clean.expectedOverhead(0) < prior.expectedOverhead(0), clean + " after clean reports is not cheaper than " + prior);
+
+            for (int i = 0; i < 8; i++) selector.record(1 << 23, 1 << 18);
+            double rate = selector.bitErrorRate();
+            Check.isTrue(rate > 0.02 && rate < 0.04, "estimated rate " + rate + " after 3% damage");
+            EncodingType noisy = selector.select();
+            Check.isTrue(noisy != clean && noisy.expectedOverhead(rate) <= 8, noisy + " picked after noisy reports");
+            Check.isTrue(noisy.residualErrorRate(rate) < rate / 100, noisy + " after noisy reports does not correct enough");
+        });
+
+        Check.test("encoding selection of allowed", () -> {
+            Set<EncodingType> allowed = EnumSet.of(EncodingType.REPETITION_3, EncodingType.REPETITION_5);
+            for (double rate : RATES)
+                Check.isTrue(allowed.contains(EncodingSelector.select(rate, 1e-9, allowed)), "encoding outside allowed at rate " + rate);
+            Check.isTrue(EncodingSelector.select(1e-3, 1e-9, EnumSet.noneOf(EncodingType.class)) == EncodingType.NONE, "encoding of none allowed");
+        });
+
+        Check.test("encoding report", () -> {
+            EncodingSelector direct = new EncodingSelector(), reported = new EncodingSelector();
+            direct.record(123_456_789L, 4321);
+            reported.record(EncodingSelector.report(123_456_789L, 4321));
+            Check.isTrue(direct.bitErrorRate() == reported.bitErrorRate(), "rate from report");
+            Check.fails(IllegalArgumentException.class, () -> reported.record(new byte[15]), "report of 15 bytes");
+        });
+    }
+
+    public static void main(String[] args) {
+        run();
+        Check.report();
+    }
+}
@@ -0,0 +1,58 @@
+package algorithms;
+
+import java.util.Arrays;
+
+public class HammingTest {
+    private static final int[] DATA_BITS = {8, 16, 32, 64};
+
+    public static void run() {
+        Check.test("hamming samples", () -> {
+            for (int dataBits : DATA_BITS)
+                for (byte[] data : Check.samples())
+                    Check.equal(data, Check.roundTrip(new Hamming(dataBits), data), "hamming " + dataBits + " of " + Check.describe(data));
+        });
+
+        Check.test("hamming single errors", () -> {
+            //one damaged bit in every codeword, in data or in check byte, header words included
+            byte[] data = Check.random(2001, 24);
+            for (int dataBits : DATA_BITS) {
+                int wordBytes = dataBits / 8;
+                Hamming codec = new Hamming(dataBits);
+                byte[] encoded = codec.encode(data);
+                int words = encoded.length / (wordBytes + 1);
+                for (int w = 0; w < words; w++) {
+                    int start = w * (wordBytes + 1);
+                    if (w % 2 == 0) Check.flip(encoded, 8L * start + w * 7 % dataBits);
+                    else encoded[start + wordBytes] ^= 1 << w % 5;
+                }
+                Check.equal(data, codec.decode(encoded), "hamming " + dataBits + " with single errors");
+                Check.equal(words, codec.corrections(), "corrections of hamming " + dataBits);
+            }
+        });
+
+        Check.test("hamming double errors", () -> {
+            //two damaged bits of one word are found but cannot be corrected
+            byte[] data = Check.random(200, 25);
+            for (int dataBits : DATA_BITS) {
+                int wordBytes = dataBits / 8;
+                Hamming codec = new Hamming(dataBits);
+                byte[] encoded = codec.encode(data);
+                int start = (4 + wordBytes - 1) / wordBytes * (wordBytes + 1); //first word after length
+                Check.flip(encoded, 8L * start);
+                Check.flip(encoded, 8L * start + dataBits - 1);
+                Check.isTrue(!Arrays.equals(data, codec.decode(encoded)), "double error of hamming " + dataBits + " is left as it came");
+                Check.equal(2, codec.corrections(), "double error of hamming " + dataBits + " is counted");
+            }
+        });
+
+        Check.test("hamming parameters", () -> {
+            Check.fails(IllegalArgumentException.class, () -> new Hamming(12), "hamming of 12 bits");
+            Check.fails(IllegalArgumentException.class, () -> new Hamming(64).decode(new byte[3]), "hamming of too short input");
+        });
+    }
+
+    public static void main(String[] args) {
+        run();
+        Check.report();
+    }
+}
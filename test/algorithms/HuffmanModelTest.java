@@ -0,0 +1,33 @@
+package algorithms;
+
+import java.nio.charset.StandardCharsets;
+
+public class HuffmanModelTest {
+    private static final HuffmanModel[] MODELS = {HuffmanModel.ENGLISH_CHAT, HuffmanModel.JSON};
+
+    public static void run() {
+        Check.test("static models samples", () -> {
+            //bytes never seen in training still have codes
+            for (HuffmanModel model : MODELS)
+                for (byte[] data : Check.samples())
+                    Check.equal(data, Check.roundTrip(new Huffman(model), data), "static model of " + Check.describe(data));
+        });
+
+        Check.test("static models without header", () -> {
+            byte[] letter = {'k'};
+            Check.isTrue(new Huffman(HuffmanModel.ENGLISH_CHAT).compress(letter).length <= 2, "one letter takes at most 2 bytes");
+            byte[] chat = "Server: ok, I will send the file to you in a minute".getBytes(StandardCharsets.UTF_8);
+            byte[] json = "{\"id\": 42, \"name\": \"chat\", \"tags\": [\"a\", \"b\"], \"value\": null}".getBytes(StandardCharsets.UTF_8);
+            Check.isTrue(new Huffman(HuffmanModel.ENGLISH_CHAT).compress(chat).length < chat.length * 3 / 4, "chat line is compressed");
+            Check.isTrue(new Huffman(HuffmanModel.JSON).compress(json).length < json.length * 3 / 4, "json is compressed");
+            for (HuffmanModel model : MODELS)
+                for (byte[] data : new byte[][]{chat, json})
+                    Check.equal(1 + (model.encodedBits(data) + 7) / 8, new Huffman(model).compress(data).length, "estimated size");
+        });
+    }
+
+    public static void main(String[] args) {
+        run();
+        Check.report();
+    }
+}
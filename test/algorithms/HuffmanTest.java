@@ -0,0 +1,40 @@
+package algorithms;
+
+public class HuffmanTest {
+    public static void run() {
+        Check.test("huffman samples", () -> {
+            for (byte[] data : Check.samples())
+                Check.equal(data, Check.roundTrip(new Huffman(), data), "huffman of " + Check.describe(data));
+        });
+
+        Check.test("huffman code length limit", () -> {
+            //fibonacci frequencies give a tree much deeper than 15, so lengths have to be limited
+            int[] freq = new int[30];
+            freq[0] = freq[1] = 1;
+            for (int i = 2; i < freq.length; i++) freq[i] = freq[i - 1] + freq[i - 2];
+            int total = 0;
+            for (int f : freq) total += f;
+            byte[] data = new byte[total];
+            for (int symbol = 0, pos = 0; symbol < freq.length; symbol++)
+                for (int k = 0; k < freq[symbol]; k++) data[pos++] = (byte) symbol;
+            int[] lengths = Huffman.buildCodeLengths(Huffman.countFrequencies(data));
+            int longest = 0;
+            for (int length : lengths) longest = Math.max(longest, length);
+            Check.isTrue(longest <= 15, "longest code " + longest + " is over 15 bits");
+            Check.equal(data, Check.roundTrip(new Huffman(), data), "huffman of fibonacci frequencies");
+        });
+
+        Check.test("huffman two symbols", () -> {
+            byte[] data = {1, 2, 2, 2, 2, 2, 2, 2, 2, 1};
+            Check.equal(data, Check.roundTrip(new Huffman(), data), "huffman of two symbols");
+        });
+
+        Check.test("huffman invalid input", () -> Check.fails(RuntimeException.class,
+                () -> new Huffman().decompress(new byte[]{0, 0, 0, 9, 0}), "huffman of truncated input"));
+    }
+
+    public static void main(String[] args) {
+        run();
+        Check.report();
+    }
+}
@@ -0,0 +1,55 @@
+package algorithms;
+
+import java.util.Arrays;
+
+public class InterleaverTest {
+    private static final int WORD_BITS = 72; //codeword of Hamming(64) with its check byte
+
+    public static void run() {
+        Check.test("interleaver samples", () -> {
+            //last block of block interleaver is partial for most lengths
+            for (byte[] data : Check.samples()) {
+                Check.equal(data, Check.roundTrip(new BlockInterleaver(new Hamming(64), WORD_BITS, 64), data),
+                        "block interleaver of " + Check.describe(data));
+                Check.equal(data, Check.roundTrip(new ConvolutionalInterleaver(new Hamming(64), WORD_BITS, 2), data),
+                        "convolutional interleaver of " + Check.describe(data));
+            }
+        });
+
+        Check.test("interleavers spread bursts", () -> {
+            byte[] data = Check.random(10_000, 26);
+            //depth 64 spreads a burst of 64 bits within one block over 64 codewords
+            Encoding block = new BlockInterleaver(new Hamming(64), WORD_BITS, 64);
+            byte[] encoded = block.encode(data);
+            burst(encoded, 3L * WORD_BITS * 64 + 100, 64); //inside fourth block
+            Check.equal(data, block.decode(encoded), "burst of 64 bits through block interleaver");
+            //branches as many as bits of codeword and delay 2 put any 72 neighbouring bits into different codewords
+            Encoding convolutional = new ConvolutionalInterleaver(new Hamming(64), WORD_BITS, 2);
+            encoded = convolutional.encode(data);
+            burst(encoded, 8L * encoded.length / 2 + 5, WORD_BITS);
+            Check.equal(data, convolutional.decode(encoded), "burst of 72 bits through convolutional interleaver");
+            //the same burst is too much for the code alone
+            Encoding plain = new Hamming(64);
+            encoded = plain.encode(data);
+            burst(encoded, 8L * encoded.length / 2 + 5, WORD_BITS);
+            Check.isTrue(!Arrays.equals(data, plain.decode(encoded)), "burst of 72 bits is not corrected without interleaver");
+        });
+
+        Check.test("interleaver parameters", () -> {
+            Check.fails(IllegalArgumentException.class, () -> new BlockInterleaver(new Hamming(), 7, 3), "rows not filling bytes");
+            Check.fails(IllegalArgumentException.class, () -> new BlockInterleaver(new Hamming(), 0, 8), "empty rows");
+            Check.fails(IllegalArgumentException.class, () -> new ConvolutionalInterleaver(new Hamming(), 72, 0), "no delay");
+            Check.fails(IllegalArgumentException.class, () -> new ConvolutionalInterleaver(new Hamming(), 72, 2).decode(new byte[3]),
+                    "input shorter than tail");
+        });
+    }
+
+    private static void burst(byte[] data, long start, int bits) {
+        for (long bit = start; bit < start + bits; bit++) Check.flip(data, bit);
+    }
+
+    public static void main(String[] args) {
+        run();
+        Check.report();
+    }
+}
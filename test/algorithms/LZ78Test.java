@@ -0,0 +1,35 @@
+package algorithms;
+
+public class LZ78Test {
+    public static void run() {
+        Check.test("lz78 samples", () -> {
+            for (byte[] data : Check.samples())
+                Check.equal(data, Check.roundTrip(new LZ78(), data), "lz78 of " + Check.describe(data));
+        });
+
+        Check.test("lz78 full dictionary", () -> {
+            //smallest dictionary fills up many times, both when it is reset and when it is kept as it is
+            byte[][] inputs = {Check.random(100_000, 4), Check.text(200_000, 5)};
+            for (byte[] data : inputs)
+                for (int bits : new int[]{9, 12, 20}) {
+                    Check.equal(data, Check.roundTrip(new LZ78(bits, true), data), "lz78 " + bits + " bits with reset");
+                    Check.equal(data, Check.roundTrip(new LZ78(bits, false), data), "lz78 " + bits + " bits without reset");
+                }
+        });
+
+        Check.test("lz78 long repeat", () -> {
+            byte[] data = new byte[300_000];
+            Check.equal(data, Check.roundTrip(new LZ78(), data), "lz78 of zeros");
+        });
+
+        Check.test("lz78 code bits", () -> {
+            Check.fails(IllegalArgumentException.class, () -> new LZ78(8, true), "lz78 with 8 bits");
+            Check.fails(IllegalArgumentException.class, () -> new LZ78(21, true), "lz78 with 21 bits");
+        });
+    }
+
+    public static void main(String[] args) {
+        run();
+        Check.report();
+    }
+}
@@ -0,0 +1,41 @@
+package algorithms;
+
+public class LZSSTest {
+    public static void run() {
+        Check.test("lzss samples", () -> {
+            for (byte[] data : Check.samples())
+                for (int windowBits : new int[]{8, 12, 16})
+                    Check.equal(data, Check.roundTrip(new LZSS(windowBits, 32), data), "lzss " + windowBits + " of " + Check.describe(data));
+        });
+
+        Check.test("lzss match limits", () -> {
+            //repeat just inside, at and just outside the largest window, and matches longer than the longest one
+            for (int distance : new int[]{65535, 65536, 65537}) {
+                byte[] block = Check.random(distance, distance);
+                byte[] data = new byte[2 * distance];
+                System.arraycopy(block, 0, data, 0, distance);
+                System.arraycopy(block, 0, data, distance, distance);
+                byte[] compressed = new LZSS().compress(data);
+                Check.equal(data, new LZSS().decompress(compressed), "lzss of repeat at distance " + distance);
+                if (distance <= 65536) Check.isTrue(compressed.length < distance * 3 / 2, "repeat at distance " + distance + " is found");
+            }
+            for (int length : new int[]{258, 259, 260, 100_000}) {
+                byte[] data = new byte[length];
+                Check.equal(data, Check.roundTrip(new LZSS(), data), "lzss of run " + length);
+            }
+            byte[] data = Check.text(100_000, 18);
+            Check.equal(data, Check.roundTrip(new LZSS(16, 1), data), "lzss with chain of 1");
+        });
+
+        Check.test("lzss parameters", () -> {
+            Check.fails(IllegalArgumentException.class, () -> new LZSS(7, 32), "lzss with 7 bit window");
+            Check.fails(IllegalArgumentException.class, () -> new LZSS(17, 32), "lzss with 17 bit window");
+            Check.fails(IllegalArgumentException.class, () -> new LZSS(16, 0), "lzss with empty chain");
+        });
+    }
+
+    public static void main(String[] args) {
+        run();
+        Check.report();
+    }
+}
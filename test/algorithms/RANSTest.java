@@ -0,0 +1,49 @@
+package algorithms;
+
+import java.util.Random;
+
+public class RANSTest {
+    public static void run() {
+        Check.test("rans samples", () -> {
+            for (byte[] data : Check.samples())
+                Check.equal(data, Check.roundTrip(new RANS(), data), "rans of " + Check.describe(data));
+            //lengths which do not fill all 4 states equally
+            for (int length = 1; length <= 9; length++) {
+                byte[] data = Check.text(length, length);
+                Check.equal(data, Check.roundTrip(new RANS(), data), "rans of " + length + " bytes");
+            }
+        });
+
+        Check.test("rans skewed input", () -> {
+            //one byte in 1000 differs, rans goes well below 1 bit per byte which is the least huffman can do
+            Random random = new Random(19);
+            byte[] data = new byte[200_000];
+            for (int i = 0; i < data.length; i++) if (random.nextInt(1000) == 0) data[i] = (byte) (1 + random.nextInt(255));
+            byte[] compressed = new RANS().compress(data);
+            Check.equal(data, new RANS().decompress(compressed), "rans of skewed input");
+            Check.isTrue(compressed.length < data.length / 16, "rans of skewed input takes " + compressed.length + " bytes");
+        });
+
+        Check.test("rans normalization", () -> {
+            //every present byte keeps a frequency even when one byte takes nearly everything
+            int[] freq = new int[256];
+            for (int i = 0; i < 256; i++) freq[i] = 1;
+            freq[7] = 1_000_000;
+            int total = 1_000_255;
+            int[] scaled = RANS.normalize(freq, total);
+            int sum = 0;
+            boolean present = true;
+            for (int i = 0; i < 256; i++) {
+                sum += scaled[i];
+                present &= scaled[i] >= 1;
+            }
+            Check.equal(1 << 12, sum, "normalized frequencies sum");
+            Check.isTrue(present, "every present byte has frequency");
+        });
+    }
+
+    public static void main(String[] args) {
+        run();
+        Check.report();
+    }
+}
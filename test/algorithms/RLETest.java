@@ -0,0 +1,37 @@
+package algorithms;
+
+public class RLETest {
+    public static void run() {
+        Check.test("rle samples", () -> {
+            for (byte[] data : Check.samples()) {
+                Check.equal(data, Check.roundTrip(new RLE(), data), "rle of " + Check.describe(data));
+                Check.equal(data, Check.roundTrip(new RLE(true), data), "long run rle of " + Check.describe(data));
+            }
+        });
+
+        Check.test("rle run lengths", () -> {
+            //around one control byte limit, and far beyond it for long runs
+            for (int length : new int[]{1, 2, 3, 126, 127, 128, 129, 254, 255, 256, 1 << 16, (1 << 20) + 3}) {
+                byte[] data = new byte[length];
+                Check.equal(data, Check.roundTrip(new RLE(), data), "rle of run " + length);
+                Check.equal(data, Check.roundTrip(new RLE(true), data), "long run rle of run " + length);
+            }
+            Check.isTrue(new RLE(true).compress(new byte[1 << 20]).length < 16, "long run of 1 MB takes a few bytes");
+        });
+
+        Check.test("rle worst case", () -> {
+            //literal followed by run of 2 is the largest expansion
+            byte[] data = new byte[30_000];
+            for (int i = 0; i < data.length; i++) data[i] = (byte) (i % 3 == 0 ? i / 3 : -1);
+            Check.equal(data, Check.roundTrip(new RLE(), data), "rle of literal and pair");
+            Check.equal(data, Check.roundTrip(new RLE(true), data), "long run rle of literal and pair");
+            byte[] literals = Check.random(100_000, 6);
+            Check.equal(literals, Check.roundTrip(new RLE(true), literals), "long run rle of long literal block");
+        });
+    }
+
+    public static void main(String[] args) {
+        run();
+        Check.report();
+    }
+}
@@ -0,0 +1,75 @@
+package algorithms;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+public class ReedSolomonTest {
+    private static final int[] PARITY = {2, 8, 16, 32, 64, 128, 250};
+
+    public static void run() {
+        Check.test("reed-solomon samples", () -> {
+            for (int parity : PARITY)
+                for (byte[] data : Check.samples())
+                    Check.equal(data, Check.roundTrip(new ReedSolomon(parity), data), "reed-solomon " + parity + " of " + Check.describe(data));
+        });
+
+        Check.test("reed-solomon corrects up to parity / 2 bytes", () -> {
+            //every codeword, the shortened last one too, gets as many damaged bytes as it can take
+            for (int parity : PARITY)
+                for (int length : new int[]{0, 1, 1000, 5000}) {
+                    byte[] data = Check.random(length, parity + length);
+                    ReedSolomon codec = new ReedSolomon(parity);
+                    byte[] encoded = codec.encode(data);
+                    long bits = damage(encoded, parity / 2, new Random(length));
+                    Check.equal(data, codec.decode(encoded), "reed-solomon " + parity + " with " + parity / 2 + " damaged bytes of " + length);
+                    Check.equal(bits, codec.corrections(), "corrections of reed-solomon " + parity);
+                }
+        });
+
+        Check.test("reed-solomon in parallel groups", () -> {
+            //more codewords than one task takes, decoded by several threads and through pooled buffers
+            ForkJoinPool pool = new ForkJoinPool(4);
+            try {
+                byte[] data = Check.random(3 << 20, 27);
+                ReedSolomon codec = new ReedSolomon(16, pool);
+                ByteBuffer encoded = codec.encode(ByteBuffer.wrap(data), new BufferPool());
+                byte[] damaged = BufferPool.toArray(encoded).clone();
+                Check.equal(codec.encode(data), BufferPool.toArray(encoded), "pooled reed-solomon encode");
+                damage(damaged, 8, new Random(28));
+                Check.equal(data, BufferPool.toArray(codec.decode(ByteBuffer.wrap(damaged), new BufferPool())), "pooled reed-solomon decode");
+            } finally {
+                pool.shutdown();
+            }
+        });
+
+        Check.test("reed-solomon parameters", () -> {
+            Check.fails(IllegalArgumentException.class, () -> new ReedSolomon(1), "reed-solomon with 1 parity byte");
+            Check.fails(IllegalArgumentException.class, () -> new ReedSolomon(251), "reed-solomon with 251 parity bytes");
+        });
+    }
+
+    //damage given number of distinct bytes in each 255-byte codeword, returns number of flipped bits
+    private static long damage(byte[] encoded, int errors, Random random) {
+        long bits = 0;
+        for (int start = 0; start < encoded.length; start += 255) {
+            int length = Math.min(255, encoded.length - start);
+            boolean[] hit = new boolean[length];
+            for (int e = 0; e < Math.min(errors, length); ) {
+                int pos = random.nextInt(length);
+                if (hit[pos]) continue;
+                hit[pos] = true;
+                int error = 1 + random.nextInt(255);
+                encoded[start + pos] ^= error;
+                bits += Integer.bitCount(error);
+                e++;
+            }
+        }
+        return bits;
+    }
+
+    public static void main(String[] args) {
+        run();
+        Check.report();
+    }
+}
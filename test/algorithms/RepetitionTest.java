@@ -0,0 +1,44 @@
+package algorithms;
+
+import java.nio.ByteBuffer;
+
+public class RepetitionTest {
+    private static final int[] COUNTS = {1, 2, 3, 5, 7, 8, 9, 11}; //up to 8 with lookup table, more with bitwise loop
+
+    public static void run() {
+        Check.test("repetition samples", () -> {
+            for (int count : COUNTS)
+                for (byte[] data : Check.samples())
+                    Check.equal(data, Check.roundTrip(new Repetition(count), data), "repetition " + count + " of " + Check.describe(data));
+        });
+
+        Check.test("repetition majority", () -> {
+            //every bit loses (count - 1) / 2 of its copies and is still decided right
+            byte[] data = Check.random(3000, 22);
+            for (int count : COUNTS) {
+                int lost = (count - 1) / 2;
+                Repetition codec = new Repetition(count);
+                byte[] encoded = codec.encode(data);
+                for (long bit = 0; bit < 8L * data.length; bit++)
+                    for (int k = 0; k < lost; k++) Check.flip(encoded, bit * count + (bit + k) % count);
+                Check.equal(data, codec.decode(encoded), "repetition " + count + " with " + lost + " lost copies");
+                Check.equal(8L * data.length * lost, codec.corrections(), "corrections of repetition " + count);
+            }
+        });
+
+        Check.test("repetition buffers", () -> {
+            byte[] data = Check.random(5000, 23);
+            for (int count : COUNTS) {
+                Repetition codec = new Repetition(count);
+                ByteBuffer encoded = codec.encode(ByteBuffer.wrap(data), BufferPool.shared());
+                Check.equal(codec.encode(data), BufferPool.toArray(encoded), "pooled repetition " + count);
+                Check.equal(data, BufferPool.toArray(codec.decode(encoded, BufferPool.shared())), "pooled decode of repetition " + count);
+            }
+        });
+    }
+
+    public static void main(String[] args) {
+        run();
+        Check.report();
+    }
+}
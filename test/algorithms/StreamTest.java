@@ -0,0 +1,62 @@
+package algorithms;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+
+public class StreamTest {
+    public static void run() {
+        //more than two blocks, the last one partial
+        byte[] large = Check.text(2 * BlockStreams.BLOCK_SIZE + 12345, 7);
+        byte[][] inputs = {new byte[0], Check.random(1000, 8), Check.text(BlockStreams.BLOCK_SIZE, 9), large};
+
+        Check.test("compression streams", () -> {
+            for (CompressionType type : CompressionType.values())
+                for (byte[] data : inputs) {
+                    Compression codec = type.create();
+                    byte[] compressed = stream(out -> codec.compress(new ByteArrayInputStream(data), out));
+                    byte[] restored = stream(out -> codec.decompress(new ByteArrayInputStream(compressed), out));
+                    Check.equal(data, restored, type + " stream of " + Check.describe(data));
+                }
+        });
+
+        Check.test("encoding streams", () -> {
+            for (EncodingType type : EncodingType.values())
+                for (byte[] data : inputs) {
+                    Encoding codec = type.create();
+                    byte[] encoded = stream(out -> codec.encode(new ByteArrayInputStream(data), out));
+                    byte[] restored = stream(out -> codec.decode(new ByteArrayInputStream(encoded), out));
+                    Check.equal(data, restored, type + " stream of " + Check.describe(data));
+                }
+        });
+
+        Check.test("truncated stream", () -> {
+            Compression codec = CompressionType.HUFFMAN.create();
+            byte[] compressed = stream(out -> codec.compress(new ByteArrayInputStream(large), out));
+            byte[] truncated = Arrays.copyOf(compressed, compressed.length - 1);
+            Check.fails(UncheckedIOException.class, () -> stream(out -> codec.decompress(new ByteArrayInputStream(truncated), out)),
+                    "decompress of truncated stream");
+        });
+    }
+
+    private interface Writer {
+        void write(ByteArrayOutputStream out) throws IOException;
+    }
+
+    private static byte[] stream(Writer writer) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            writer.write(out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    public static void main(String[] args) {
+        run();
+        Check.report();
+    }
+}